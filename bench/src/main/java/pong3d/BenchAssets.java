@@ -0,0 +1,19 @@
+package pong3d;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+// The game loads its assets relative to the repository root, the
+// benchmarks may also be started from bench/.
+class BenchAssets {
+    static String path(String filename) {
+        if (Files.exists(Paths.get(filename))) {
+            return filename;
+        }
+        String parent = "../" + filename;
+        if (Files.exists(Paths.get(parent))) {
+            return parent;
+        }
+        throw new IllegalStateException("Can not find " + filename + ", run the benchmarks from the repository root");
+    }
+}
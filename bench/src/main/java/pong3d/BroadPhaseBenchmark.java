@@ -0,0 +1,56 @@
+package pong3d;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// One tick of the broad phase for a growing number of moving entities at a
+// constant density: update every AABB, then collect all overlapping pairs.
+// The cost per entity should stay about flat as the count grows.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadPhaseBenchmark {
+    @Param({"1000", "10000", "100000"})
+    int entities;
+
+    BallField balls;
+    // paddles out of the way, the balls only bounce off the walls
+    final BallField.Paddles paddles = new BallField.Paddles();
+    SpatialGrid grid;
+    float halfSize;
+    int pairs;
+    final SpatialGrid.PairVisitor countPair = (a, b) -> pairs++;
+
+    @Setup
+    public void setup() {
+        balls = new BallField(entities, new Random(42));
+        float area = 2 * BallField.WALL_X * 2 * BallField.WALL_Y;
+        halfSize = 0.25f * (float) Math.sqrt(area / entities);
+        // keep the speed relative to the entity size, a quarter of a cell per tick at most
+        for (int i = 0; i < entities; i++) {
+            balls.velocityX[i] *= halfSize / 0.03f;
+            balls.velocityY[i] *= halfSize / 0.03f;
+        }
+        grid = new SpatialGrid(-BallField.WALL_X, -BallField.WALL_Y, BallField.WALL_X, BallField.WALL_Y,
+                4 * halfSize, entities);
+        for (int i = 0; i < entities; i++) {
+            grid.add(1, 1);
+        }
+    }
+
+    @Benchmark
+    public int tick() {
+        balls.step(0, balls.count, paddles);
+        for (int i = 0; i < balls.count; i++) {
+            grid.updateCentered(i, balls.posX[i], balls.posY[i], halfSize, halfSize);
+        }
+        pairs = 0;
+        grid.forEachPair(countPair);
+        return pairs;
+    }
+}
@@ -0,0 +1,66 @@
+package pong3d;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// The per tick transform system over a growing number of entities, a quarter
+// of them inactive and spread over the ids, and deactivating and activating
+// an entity. The cost per entity of the system should stay about flat as the
+// count grows, and the churn should not depend on the count at all.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityStoreBenchmark {
+    static final int CHURN = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    int entities;
+
+    EntityStore store;
+    // entities deactivated and activated again by churn()
+    final int[] churned = new int[CHURN];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        // grown from the game's size, like a store that entities are added to
+        store = new EntityStore(8);
+        for (int i = 0; i < entities; i++) {
+            int id = store.create(EntityStore.TRANSFORM | EntityStore.RENDERABLE);
+            store.posX[id] = random.nextFloat() * 2 - 1;
+            store.posY[id] = random.nextFloat() * 2 - 1;
+            store.rotationY[id] = random.nextFloat() * 0.02f - 0.01f;
+            store.rotationZ[id] = random.nextFloat() * 0.02f - 0.01f;
+        }
+        for (int i = 0; i < entities / 4; i++) {
+            store.deactivate(random.nextInt(entities));
+        }
+        for (int i = 0; i < CHURN; i++) {
+            churned[i] = random.nextInt(entities);
+        }
+    }
+
+    @Benchmark
+    public int storePreviousStateAndSpin() {
+        store.storePreviousStateAndSpin();
+        return store.activeCount();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHURN)
+    public int deactivateAndActivate() {
+        for (int id : churned) {
+            boolean active = store.isActive(id);
+            store.deactivate(id);
+            if (active) {
+                store.activate(id);
+            }
+        }
+        return store.activeCount();
+    }
+}
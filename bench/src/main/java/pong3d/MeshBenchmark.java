@@ -0,0 +1,37 @@
+package pong3d;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Mesh decoding on the asset loader threads: parsing the text vbo file and
+// mapping its binary cache.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeshBenchmark {
+    @Param({"src/ball.vbo", "src/court.vbo"})
+    String mesh;
+
+    String meshPath;
+
+    @Setup
+    public void setup() {
+        meshPath = BenchAssets.path(mesh);
+        // write the binary cache once so loadMeshFile measures the mapped path
+        VboLoader.loadMeshFile(meshPath);
+    }
+
+    @Benchmark
+    public float[] loadVertexData() {
+        return VboLoader.loadVertexData(meshPath, MeshFile.floatsPerVertex(MeshFile.LAYOUT_PCTN));
+    }
+
+    @Benchmark
+    public MeshFile loadMeshFile() {
+        return VboLoader.loadMeshFile(meshPath);
+    }
+}
@@ -0,0 +1,37 @@
+package pong3d;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// One tick of the multi-ball stress mode per kernel and runner.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class MultiBallBenchmark {
+    @Param({"1000", "100000"})
+    int balls;
+
+    @Param({"false", "true"})
+    boolean vector;
+
+    @Param({"false", "true"})
+    boolean parallel;
+
+    MultiBallSimulation simulation;
+
+    @Setup
+    public void setup() {
+        simulation = new MultiBallSimulation(balls, 42, vector, parallel ? ForkJoinPool.commonPool() : null);
+    }
+
+    @Benchmark
+    public long update() {
+        simulation.update();
+        return simulation.ticks;
+    }
+}
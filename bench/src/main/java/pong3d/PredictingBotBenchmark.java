@@ -0,0 +1,42 @@
+package pong3d;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// What the bot adds to a tick: most ticks reuse the cached prediction, a
+// new ball velocity (serve, bounce, hit) makes it predict once.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PredictingBotBenchmark {
+    Simulation simulation;
+    PredictingBot bot;
+
+    @Setup
+    public void setup() {
+        simulation = new Simulation(42);
+        HeadlessRunner.run(simulation, 10_000);
+        if (simulation.pauseGame) {
+            simulation.startGame();
+        }
+        bot = new PredictingBot(simulation, simulation.playerTwo, PredictingBot.Level.HARD, 1);
+    }
+
+    @Benchmark
+    public Player cached() {
+        bot.update();
+        return simulation.playerTwo;
+    }
+
+    // the ball turns around on every call, the way it does at a hit
+    @Benchmark
+    public Player predict() {
+        simulation.ball.setVelocityX(-simulation.ball.velocityX());
+        bot.update();
+        return simulation.playerTwo;
+    }
+}
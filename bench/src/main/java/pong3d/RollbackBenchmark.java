@@ -0,0 +1,64 @@
+package pong3d;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Saving and restoring the simulation state, and the worst case rollback a
+// client expects: restoring the state of 8 ticks ago and stepping the 8
+// ticks again. A frame at 120 Hz leaves 8,333,333 ns for it.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RollbackBenchmark {
+    Simulation simulation;
+    Rollback rollback;
+    SimulationSnapshot snapshot;
+
+    @Setup
+    public void setup() {
+        simulation = new Simulation();
+        HeadlessRunner.run(simulation, 10_000);
+        rollback = new Rollback(simulation);
+        for (int i = 0; i < Rollback.FRAMES; i++) {
+            rollback.advance(NetProtocol.BUTTON_UP | NetProtocol.BUTTON_SERVE, NetProtocol.BUTTON_DOWN);
+        }
+        snapshot = new SimulationSnapshot();
+        snapshot.save(simulation);
+    }
+
+    @Benchmark
+    public SimulationSnapshot save() {
+        snapshot.save(simulation);
+        return snapshot;
+    }
+
+    // what enableChecksums() adds to every tick
+    @Benchmark
+    public long saveAndChecksum() {
+        snapshot.save(simulation);
+        return snapshot.checksum();
+    }
+
+    @Benchmark
+    public Simulation restore() {
+        snapshot.restore(simulation);
+        return simulation;
+    }
+
+    // the stored inputs do not change, so every call ends in the same state
+    @Benchmark
+    public Simulation rollback8() {
+        rollback.rollback(8);
+        return simulation;
+    }
+
+    @Benchmark
+    public Simulation rollback16() {
+        rollback.rollback(Rollback.FRAMES);
+        return simulation;
+    }
+}
@@ -0,0 +1,58 @@
+package pong3d;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// One simulation tick and the collision checks it runs, with both paddles
+// following the ball so rallies go on.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulationBenchmark {
+    Simulation simulation;
+
+    @Setup
+    public void setup() {
+        simulation = new Simulation();
+        HeadlessRunner.run(simulation, 10_000);
+    }
+
+    @Benchmark
+    public Simulation update() {
+        HeadlessRunner.run(simulation, 1);
+        return simulation;
+    }
+
+    // the ball's sweep hits player one's paddle on every call
+    @Benchmark
+    public float moveBallHitPlayer() {
+        Ball ball = simulation.ball;
+        ball.setPosX(-1.55f);
+        ball.setPosY(simulation.playerOne.posY());
+        ball.setVelocityX(-0.03f);
+        ball.setVelocityY(0.015f);
+        simulation.nearPlayer = true;
+        simulation.nearPowerUp = false;
+        simulation.moveBall();
+        return ball.velocityX();
+    }
+
+    // a spawned power-up away from the ball's path, the sweep runs without a pickup
+    @Benchmark
+    public int moveBallPastPowerUp() {
+        Ball ball = simulation.ball;
+        simulation.powerUp.setSpawned(true);
+        simulation.powerUp.setPosX(0.0f);
+        simulation.powerUp.setPosY(0.9f);
+        ball.setPosX(1.0f);
+        ball.setPosY(-0.5f);
+        simulation.nearPlayer = false;
+        simulation.nearPowerUp = true;
+        simulation.moveBall();
+        return simulation.activePowerUps;
+    }
+}
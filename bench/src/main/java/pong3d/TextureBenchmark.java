@@ -0,0 +1,44 @@
+package pong3d;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+
+import org.openjdk.jmh.annotations.*;
+
+// The pixel unpack loop of texture decoding, the image is decoded once in setup.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextureBenchmark {
+    @Param({"src/powerup_icons_grow.png", "src/white.png"})
+    String texture;
+
+    int[] pixels;
+    int width;
+    int height;
+    ByteBuffer pixelBuffer;
+
+    @Setup
+    public void setup() throws IOException {
+        BufferedImage image = ImageIO.read(new File(BenchAssets.path(texture)));
+        width = image.getWidth();
+        height = image.getHeight();
+        pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        pixelBuffer = ByteBuffer.allocateDirect(pixels.length * 4).order(ByteOrder.nativeOrder());
+    }
+
+    @Benchmark
+    public ByteBuffer unpackPixels() {
+        pixelBuffer.clear();
+        TextureLoader.unpackPixels(pixels, width, height, pixelBuffer);
+        return pixelBuffer;
+    }
+}
@@ -0,0 +1,37 @@
+package pong3d;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// One simulation tick of the effect scheduler with many effects pending:
+// every tick one effect expires and a new one with the same delay is scheduled.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimingWheelBenchmark {
+    @Param({"16", "10000"})
+    int effects;
+
+    TimingWheel wheel;
+    int expired;
+    Runnable effect = () -> expired++;
+
+    @Setup
+    public void setup() {
+        wheel = new TimingWheel();
+        for (int i = 0; i < effects; i++) {
+            wheel.schedule(i + 1, effect);
+        }
+    }
+
+    @Benchmark
+    public int scheduleAndAdvance() {
+        wheel.schedule(effects, effect);
+        wheel.advance();
+        return expired;
+    }
+}
@@ -0,0 +1,54 @@
+package pong3d;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.jogamp.math.Matrix4f;
+
+// The per-object matrix work of the render pass: the modelview and the
+// normal matrix of every drawn object, and the squashed shadow modelview.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+    Simulation simulation;
+    Entity[] entities;
+    final Matrix4f modelview = new Matrix4f();
+    final Matrix4f normalMat = new Matrix4f();
+    final Matrix4f tmpMatrix = new Matrix4f();
+
+    @Setup
+    public void setup() {
+        simulation = new Simulation();
+        HeadlessRunner.run(simulation, 10_000);
+        entities = new Entity[] {simulation.court, simulation.ball, simulation.playerOne, simulation.playerTwo,
+                simulation.scoreOne, simulation.scoreTwo};
+    }
+
+    @Benchmark
+    public Matrix4f modelviewAndNormalMatrix() {
+        Game.setModelview(modelview, simulation.ball, 0.5f, -2.0f, simulation.ball.sizeZ(), tmpMatrix);
+        Game.setNormalMatrix(normalMat, modelview);
+        return normalMat;
+    }
+
+    @Benchmark
+    public Matrix4f shadowModelview() {
+        Game.setModelview(modelview, simulation.ball, 0.5f, -2.25f, 0.0f, tmpMatrix);
+        return modelview;
+    }
+
+    // everything the simulation has in a frame
+    @Benchmark
+    public Matrix4f frame() {
+        for (Entity entity : entities) {
+            Game.setModelview(modelview, entity, 0.5f, -2.0f, entity.sizeZ(), tmpMatrix);
+            Game.setNormalMatrix(normalMat, modelview);
+        }
+        return normalMat;
+    }
+}
@@ -0,0 +1,47 @@
+package pong3d;
+
+// Warms up the headless simulation and then counts the bytes every tick
+// allocates on this thread. A steady state tick must not allocate, so the
+// check exits with status 1 when any measured tick did, for use in a build
+// or a CI step.
+//
+// usage: java -cp game/target/classes pong3d.AllocationCheck [warm up ticks] [ticks]
+class AllocationCheck {
+    public static void main(String[] args) {
+        int warmUp = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        AllocationCounter allocations = new AllocationCounter();
+        if (!allocations.isSupported()) {
+            System.out.println("thread allocation counting is not supported by this JVM");
+            System.exit(1);
+        }
+
+        boolean passed = check("plain", new Simulation(42), allocations, warmUp, ticks);
+        Simulation checked = new Simulation(42);
+        checked.enableChecksums();
+        passed &= check("with checksums", checked, allocations, warmUp, ticks);
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    static boolean check(String name, Simulation simulation, AllocationCounter allocations, int warmUp, int ticks) {
+        HeadlessRunner.run(simulation, warmUp);
+        allocations.reset();
+        int allocatingTicks = 0;
+        for (int i = 0; i < ticks; i++) {
+            allocations.beginFrame();
+            HeadlessRunner.run(simulation, 1);
+            allocations.endFrame();
+            if (allocations.lastFrameBytes() > 0) {
+                allocatingTicks++;
+            }
+        }
+        boolean passed = allocations.maxBytesPerFrame() == 0;
+        System.out.printf("%s: %d ticks, %.2f bytes/tick, max %d bytes, %d ticks allocated: %s%n", name,
+                allocations.frames(), allocations.averageBytesPerFrame(), allocations.maxBytesPerFrame(),
+                allocatingTicks, passed ? "OK" : "FAIL");
+        return passed;
+    }
+}
@@ -0,0 +1,74 @@
+package pong3d;
+
+import java.lang.management.ManagementFactory;
+
+// Counts the heap bytes the calling thread allocates between beginFrame()
+// and endFrame(), based on ThreadMXBean.getThreadAllocatedBytes. A steady
+// state frame is expected to allocate nothing, so a non-zero value points
+// to a regression in the render or update path.
+class AllocationCounter {
+    private final com.sun.management.ThreadMXBean threadBean;
+    private final boolean supported;
+
+    private long frameStart;
+    private long lastFrameBytes;
+    private long maxFrameBytes;
+    private long totalBytes;
+    private int frames;
+
+    public AllocationCounter() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threadBean = (com.sun.management.ThreadMXBean) bean;
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+            supported = true;
+        } else {
+            threadBean = null;
+            supported = false;
+        }
+    }
+
+    public boolean isSupported() {
+        return supported;
+    }
+
+    public void beginFrame() {
+        if (supported) {
+            frameStart = threadBean.getCurrentThreadAllocatedBytes();
+        }
+    }
+
+    public void endFrame() {
+        if (!supported) {
+            return;
+        }
+        lastFrameBytes = threadBean.getCurrentThreadAllocatedBytes() - frameStart;
+        maxFrameBytes = Math.max(maxFrameBytes, lastFrameBytes);
+        totalBytes += lastFrameBytes;
+        frames++;
+    }
+
+    public long lastFrameBytes() {
+        return lastFrameBytes;
+    }
+
+    public long maxBytesPerFrame() {
+        return maxFrameBytes;
+    }
+
+    public double averageBytesPerFrame() {
+        return frames == 0 ? 0 : (double) totalBytes / frames;
+    }
+
+    public int frames() {
+        return frames;
+    }
+
+    public void reset() {
+        lastFrameBytes = 0;
+        maxFrameBytes = 0;
+        totalBytes = 0;
+        frames = 0;
+    }
+}
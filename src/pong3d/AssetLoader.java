@@ -0,0 +1,80 @@
+package pong3d;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+
+import com.jogamp.opengl.GL3;
+
+// Decodes meshes and textures on a worker pool. The GL objects are created
+// on the GL thread by drainUploads(), which does a bounded amount of work
+// per frame. The returned futures complete on the GL thread, so callbacks
+// attached to them may use the uploaded IDs right away. A failed decode or
+// upload is logged and completes the future exceptionally, it never throws
+// out of drainUploads().
+class AssetLoader {
+    private final ExecutorService workers;
+    private final Queue<Runnable> uploads = new ConcurrentLinkedQueue<>();
+    private GL3 gl; // only valid while drainUploads() runs
+
+    public AssetLoader() {
+        workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "asset-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<Mesh> loadMesh(String filename) {
+        return logFailure(filename, CompletableFuture.supplyAsync(() -> VboLoader.loadMeshFile(filename), workers)
+                .thenCompose(meshFile -> upload(meshFile, VboLoader::uploadVBO)));
+    }
+
+    // completes with a valid textureID on success, otherwise -1
+    public CompletableFuture<Integer> loadTexture(String filename) {
+        return logFailure(filename, CompletableFuture.supplyAsync(() -> TextureLoader.decodeTexture(filename), workers)
+                .thenCompose(textureData -> upload(textureData, TextureLoader::uploadTexture)));
+    }
+
+    private static <T> CompletableFuture<T> logFailure(String filename, CompletableFuture<T> future) {
+        return future.whenComplete((result, failure) -> {
+            if (failure != null) {
+                System.out.println("Can not load " + filename);
+                failure.printStackTrace();
+            }
+        });
+    }
+
+    private <T, R> CompletableFuture<R> upload(T data, GlUpload<T, R> upload) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        uploads.add(() -> {
+            // runs in display(), an exception would end the frame
+            try {
+                result.complete(upload.apply(gl, data));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    // runs at most maxUploads pending uploads, returns the number of uploads done
+    public int drainUploads(GL3 gl, int maxUploads) {
+        int done = 0;
+        this.gl = gl;
+        Runnable upload;
+        while (done < maxUploads && (upload = uploads.poll()) != null) {
+            upload.run();
+            done++;
+        }
+        this.gl = null;
+        return done;
+    }
+
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    interface GlUpload<T, R> {
+        R apply(GL3 gl, T data);
+    }
+}
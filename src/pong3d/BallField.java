@@ -0,0 +1,96 @@
+package pong3d;
+
+import java.util.Random;
+
+// Many balls stored structure-of-arrays style, one primitive array per
+// component, so the per-tick loops stream through memory and vectorize.
+// The balls do not collide with each other, only with the court walls and
+// the two paddles.
+class BallField {
+    static final float RADIUS = 0.02f;
+    // balls bounce off the back walls instead of scoring
+    static final float WALL_X = 1.9f;
+    static final float WALL_Y = 1.0f;
+    // same spin response as Simulation.checkCollisionBallPlayer
+    static final float SPIN = 273f;
+
+    final int count;
+    final float[] posX;
+    final float[] posY;
+    final float[] velocityX;
+    final float[] velocityY;
+
+    public BallField(int count, Random rand) {
+        this.count = count;
+        posX = new float[count];
+        posY = new float[count];
+        velocityX = new float[count];
+        velocityY = new float[count];
+        for (int i = 0; i < count; i++) {
+            posX[i] = (rand.nextFloat() * 2 - 1) * WALL_X * 0.9f;
+            posY[i] = (rand.nextFloat() * 2 - 1) * WALL_Y * 0.9f;
+            // about the speed of a served ball, in any direction
+            velocityX[i] = (rand.nextFloat() * 2 - 1) * 0.03f;
+            velocityY[i] = (rand.nextFloat() * 2 - 1) * 0.015f;
+        }
+    }
+
+    // moves the balls in [from, to) by one tick and bounces them off walls and paddles
+    void step(int from, int to, Paddles paddles) {
+        for (int i = from; i < to; i++) {
+            float x = posX[i] + velocityX[i];
+            float y = posY[i] + velocityY[i];
+            float vx = velocityX[i];
+            float vy = velocityY[i];
+
+            // ceiling and ground, only when moving outwards so a ball can not get stuck
+            if ((y > WALL_Y && vy > 0) || (y < -WALL_Y && vy < 0)) {
+                vy = -vy;
+            }
+            // back walls
+            if ((x > WALL_X && vx > 0) || (x < -WALL_X && vx < 0)) {
+                vx = -vx;
+            }
+
+            // player one, hit from the right while moving left
+            if (vx < 0 && x - RADIUS < paddles.oneRight && x - RADIUS > paddles.oneLeft
+                    && y - RADIUS < paddles.oneUp && y + RADIUS > paddles.oneDown) {
+                x = paddles.oneRight + RADIUS;
+                vx = -(vx + paddles.oneSpin * .0005f);
+                vy += paddles.oneSpin * .0015f;
+            }
+            // player two, hit from the left while moving right
+            if (vx > 0 && x + RADIUS > paddles.twoLeft && x + RADIUS < paddles.twoRight
+                    && y - RADIUS < paddles.twoUp && y + RADIUS > paddles.twoDown) {
+                x = paddles.twoLeft - RADIUS;
+                vx = -vx + paddles.twoSpin * .0005f;
+                vy += paddles.twoSpin * .0015f;
+            }
+
+            posX[i] = x;
+            posY[i] = y;
+            velocityX[i] = vx;
+            velocityY[i] = vy;
+        }
+    }
+
+    // the paddle bounds of the current tick, copied out of the Player objects
+    // so the inner loops only read primitive fields
+    static class Paddles {
+        float oneLeft, oneRight, oneUp, oneDown, oneSpin;
+        float twoLeft, twoRight, twoUp, twoDown, twoSpin;
+
+        void set(Player one, Player two) {
+            oneLeft = one.borderLeft();
+            oneRight = one.borderRight();
+            oneUp = one.borderUp();
+            oneDown = one.borderDown();
+            oneSpin = one.velocityY() * SPIN;
+            twoLeft = two.borderLeft();
+            twoRight = two.borderRight();
+            twoUp = two.borderUp();
+            twoDown = two.borderDown();
+            twoSpin = two.velocityY() * SPIN;
+        }
+    }
+}
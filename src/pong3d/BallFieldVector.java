@@ -0,0 +1,68 @@
+package pong3d;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// SIMD version of BallField.step built on the incubating Vector API, the
+// branches of the scalar loop become lane masks. Needs
+// --add-modules jdk.incubator.vector at compile and run time; loading the
+// class without it fails, check MultiBallSimulation.vectorAvailable() first.
+class BallFieldVector {
+    static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    static void step(BallField balls, int from, int to, BallField.Paddles paddles) {
+        final float r = BallField.RADIUS;
+        int i = from;
+        int upperBound = from + SPECIES.loopBound(to - from);
+        for (; i < upperBound; i += SPECIES.length()) {
+            FloatVector vx = FloatVector.fromArray(SPECIES, balls.velocityX, i);
+            FloatVector vy = FloatVector.fromArray(SPECIES, balls.velocityY, i);
+            FloatVector x = FloatVector.fromArray(SPECIES, balls.posX, i).add(vx);
+            FloatVector y = FloatVector.fromArray(SPECIES, balls.posY, i).add(vy);
+
+            // ceiling and ground, back walls
+            VectorMask<Float> bounceY = y.compare(VectorOperators.GT, BallField.WALL_Y)
+                    .and(vy.compare(VectorOperators.GT, 0))
+                    .or(y.compare(VectorOperators.LT, -BallField.WALL_Y).and(vy.compare(VectorOperators.LT, 0)));
+            vy = vy.blend(vy.neg(), bounceY);
+            VectorMask<Float> bounceX = x.compare(VectorOperators.GT, BallField.WALL_X)
+                    .and(vx.compare(VectorOperators.GT, 0))
+                    .or(x.compare(VectorOperators.LT, -BallField.WALL_X).and(vx.compare(VectorOperators.LT, 0)));
+            vx = vx.blend(vx.neg(), bounceX);
+
+            // player one
+            FloatVector left = x.sub(r);
+            FloatVector right = x.add(r);
+            FloatVector down = y.sub(r);
+            FloatVector up = y.add(r);
+            VectorMask<Float> hitOne = vx.compare(VectorOperators.LT, 0)
+                    .and(left.compare(VectorOperators.LT, paddles.oneRight))
+                    .and(left.compare(VectorOperators.GT, paddles.oneLeft))
+                    .and(down.compare(VectorOperators.LT, paddles.oneUp))
+                    .and(up.compare(VectorOperators.GT, paddles.oneDown));
+            x = x.blend(paddles.oneRight + r, hitOne);
+            vx = vx.blend(vx.add(paddles.oneSpin * .0005f).neg(), hitOne);
+            vy = vy.blend(vy.add(paddles.oneSpin * .0015f), hitOne);
+
+            // player two, tested against the position after player one like the scalar loop
+            right = x.add(r);
+            VectorMask<Float> hitTwo = vx.compare(VectorOperators.GT, 0)
+                    .and(right.compare(VectorOperators.GT, paddles.twoLeft))
+                    .and(right.compare(VectorOperators.LT, paddles.twoRight))
+                    .and(down.compare(VectorOperators.LT, paddles.twoUp))
+                    .and(up.compare(VectorOperators.GT, paddles.twoDown));
+            x = x.blend(paddles.twoLeft - r, hitTwo);
+            vx = vx.blend(vx.neg().add(paddles.twoSpin * .0005f), hitTwo);
+            vy = vy.blend(vy.add(paddles.twoSpin * .0015f), hitTwo);
+
+            x.intoArray(balls.posX, i);
+            y.intoArray(balls.posY, i);
+            vx.intoArray(balls.velocityX, i);
+            vy.intoArray(balls.velocityY, i);
+        }
+        // tail that does not fill a vector
+        balls.step(i, to, paddles);
+    }
+}
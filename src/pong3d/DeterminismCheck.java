@@ -0,0 +1,155 @@
+package pong3d;
+
+import java.util.ArrayList;
+
+// Runs the same seeded bot match on several threads at once and compares
+// the per-tick checksums, to show a match is reproducible: across threads,
+// through a snapshot restore into a fresh simulation every 1000 ticks, and
+// that a split seed gives another match. A shorter match is stepped through
+// Rollback with player two's input arriving 1 to 15 ticks late, and has to
+// end in the same state as without the delay. Also reports what the
+// checksums cost per tick.
+//
+// usage: java -cp game/target/classes pong3d.DeterminismCheck [ticks] [threads] [seed] [rollback ticks]
+class DeterminismCheck {
+    static final int[] INPUT_DELAYS = {1, 3, 8, 15};
+
+    public static void main(String[] args) throws InterruptedException {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        int rollbackTicks = args.length > 3 ? Integer.parseInt(args[3]) : 200_000;
+
+        long[][] checksums = new long[threads][];
+        ArrayList<Thread> runners = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int index = i;
+            Thread thread = new Thread(() -> checksums[index] = run(new Simulation(seed), ticks, 0), "match-" + i);
+            thread.start();
+            runners.add(thread);
+        }
+        for (Thread thread : runners) {
+            thread.join();
+        }
+        for (int i = 1; i < threads; i++) {
+            report("thread " + i + " against thread 0", checksums[0], checksums[i]);
+        }
+
+        report("restored every 1000 ticks", checksums[0], run(new Simulation(seed), ticks, 1000));
+
+        long splitSeed = new SimulationRandom(seed).split().nextLong();
+        long[] split = run(new Simulation(splitSeed), ticks, 0);
+        int diverged = firstMismatch(checksums[0], split);
+        System.out.printf("split seed %d: %s%n", splitSeed,
+                diverged < 0 ? "same match, the seed is not used" : "diverges at tick " + diverged);
+
+        Simulation reference = new Simulation(seed);
+        int[][] inputs = recordInputs(reference, rollbackTicks);
+        SimulationSnapshot expected = new SimulationSnapshot();
+        expected.save(reference);
+        for (int delay : INPUT_DELAYS) {
+            runDelayed(seed, inputs, delay, expected);
+        }
+
+        Simulation plain = new Simulation(seed);
+        Simulation checked = new Simulation(seed);
+        checked.enableChecksums();
+        HeadlessRunner.run(plain, ticks);
+        HeadlessRunner.run(checked, ticks);
+        long start = System.nanoTime();
+        HeadlessRunner.run(plain, ticks);
+        double plainNanos = (double) (System.nanoTime() - start) / ticks;
+        start = System.nanoTime();
+        HeadlessRunner.run(checked, ticks);
+        double checkedNanos = (double) (System.nanoTime() - start) / ticks;
+        System.out.printf("tick %.0f ns, with checksum %.0f ns%n", plainNanos, checkedNanos);
+    }
+
+    // the checksum after every tick; with restoreEvery > 0 the state moves
+    // to a new simulation with another seed that often
+    static long[] run(Simulation simulation, int ticks, int restoreEvery) {
+        long[] checksums = new long[ticks];
+        SimulationSnapshot snapshot = new SimulationSnapshot();
+        simulation.enableChecksums();
+        for (int i = 0; i < ticks; i++) {
+            if (restoreEvery > 0 && i % restoreEvery == 0) {
+                snapshot.save(simulation);
+                simulation = new Simulation(i);
+                snapshot.restore(simulation);
+                simulation.enableChecksums();
+            }
+            HeadlessRunner.run(simulation, 1);
+            checksums[i] = simulation.checksum;
+        }
+        return checksums;
+    }
+
+    // steps a bot match with NetProtocol buttons and returns them, by player and tick
+    static int[][] recordInputs(Simulation simulation, int ticks) {
+        int[][] inputs = new int[2][ticks];
+        for (int i = 0; i < ticks; i++) {
+            inputs[0][i] = botButtons(simulation, simulation.playerOne);
+            inputs[1][i] = botButtons(simulation, simulation.playerTwo);
+            NetProtocol.applyButtons(simulation, simulation.playerOne, inputs[0][i]);
+            NetProtocol.applyButtons(simulation, simulation.playerTwo, inputs[1][i]);
+            simulation.update();
+        }
+        return inputs;
+    }
+
+    // HeadlessRunner's tracking, and both serve
+    static int botButtons(Simulation simulation, Player player) {
+        float ballY = simulation.ball.posY();
+        int buttons = simulation.pauseGame ? NetProtocol.BUTTON_SERVE : 0;
+        if (ballY > player.posY() + 0.05f) {
+            buttons |= NetProtocol.BUTTON_UP;
+        }
+        if (ballY < player.posY() - 0.05f) {
+            buttons |= NetProtocol.BUTTON_DOWN;
+        }
+        return buttons;
+    }
+
+    // the recorded match through Rollback, player two's input confirmed delay
+    // ticks after it was stepped with a prediction
+    static void runDelayed(long seed, int[][] inputs, int delay, SimulationSnapshot expected) {
+        int ticks = inputs[0].length;
+        Rollback rollback = new Rollback(new Simulation(seed));
+        for (int i = 0; i < ticks; i++) {
+            rollback.advance(inputs[0][i], rollback.predict(1));
+            if (i >= delay) {
+                rollback.confirm(i - delay, 1, inputs[1][i - delay]);
+                rollback.resolve();
+            }
+        }
+        for (int i = Math.max(0, ticks - delay); i < ticks; i++) {
+            rollback.confirm(i, 1, inputs[1][i]);
+        }
+        rollback.resolve();
+
+        SimulationSnapshot actual = new SimulationSnapshot();
+        actual.save(rollback.simulation);
+        System.out.printf("remote input %d ticks late: %d ticks, %d rollbacks, %d ticks stepped again, %s%n", delay,
+                ticks, rollback.rollbacks, rollback.resimulatedTicks,
+                actual.matches(expected) ? "same end state" : "DESYNC, end state differs");
+    }
+
+    static int firstMismatch(long[] expected, long[] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] != actual[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static void report(String name, long[] expected, long[] actual) {
+        int tick = firstMismatch(expected, actual);
+        if (tick < 0) {
+            System.out.printf("%s: %d ticks match, last checksum %016x%n", name, expected.length,
+                    expected[expected.length - 1]);
+        } else {
+            System.out.printf("%s: DESYNC at tick %d%n", name, tick);
+        }
+    }
+}
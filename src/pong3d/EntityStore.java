@@ -0,0 +1,272 @@
+package pong3d;
+
+import java.util.Arrays;
+
+// Data oriented storage of the game's entities. Every component field is a
+// primitive array indexed by entity id: transform, physics, collider and
+// renderable. PADDLE and DRIFT choose the rule the physics system moves an
+// entity by. An entity is an id and the mask of components it has;
+// Entity and its subclasses are handles that read and write the arrays.
+//
+// The systems walk the ids in order, so they read every array front to
+// back whatever order entities come and go in. Destroyed ids go on a free
+// list and are handed out again first, which keeps the ids dense. Creating,
+// destroying, activating and deactivating are O(1) and never scan. A
+// deactivated entity keeps its values and is skipped by the systems, a
+// power-up that is taken and spawns again later is the same id.
+class EntityStore {
+    static final int TRANSFORM = 1;
+    static final int PHYSICS = 2;
+    static final int COLLIDER = 4;
+    static final int RENDERABLE = 8;
+    // physics: accelerated, damped and stopped at the court's edges
+    static final int PADDLE = 16;
+    // physics: bounces off the court's edges
+    static final int DRIFT = 32;
+    // kept in components along with the mask
+    private static final int ACTIVE = 1 << 30;
+    private static final int DESTROYED = 1 << 29;
+
+    private int capacity;
+    // ids below this one have been handed out
+    private int created;
+    int[] components;
+
+    // transform: position, angles and their change per tick, and the previous tick's values
+    float[] posX, posY;
+    float[] angleX, angleY, angleZ;
+    float[] rotationY, rotationZ;
+    float[] prevPosX, prevPosY;
+    float[] prevAngleY, prevAngleZ;
+    // physics
+    float[] velocityX, velocityY;
+    float[] accelerationY, damping;
+    // collider: half extents and the box around the entity, kept up to date by its kind
+    float[] scaleX, scaleY, scaleZ;
+    float[] borderLeft, borderRight, borderUp, borderDown;
+    // renderable: the size the mesh is drawn at
+    float[] sizeX, sizeY, sizeZ;
+
+    private int activeCount;
+    // destroyed ids, create() takes them before new ones
+    private int[] free;
+    private int freeCount;
+
+    public EntityStore(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        components = new int[this.capacity];
+        free = new int[this.capacity];
+        posX = new float[this.capacity];
+        posY = new float[this.capacity];
+        angleX = new float[this.capacity];
+        angleY = new float[this.capacity];
+        angleZ = new float[this.capacity];
+        rotationY = new float[this.capacity];
+        rotationZ = new float[this.capacity];
+        prevPosX = new float[this.capacity];
+        prevPosY = new float[this.capacity];
+        prevAngleY = new float[this.capacity];
+        prevAngleZ = new float[this.capacity];
+        velocityX = new float[this.capacity];
+        velocityY = new float[this.capacity];
+        accelerationY = new float[this.capacity];
+        damping = new float[this.capacity];
+        scaleX = new float[this.capacity];
+        scaleY = new float[this.capacity];
+        scaleZ = new float[this.capacity];
+        borderLeft = new float[this.capacity];
+        borderRight = new float[this.capacity];
+        borderUp = new float[this.capacity];
+        borderDown = new float[this.capacity];
+        sizeX = new float[this.capacity];
+        sizeY = new float[this.capacity];
+        sizeZ = new float[this.capacity];
+    }
+
+    // returns the id of a new active entity with all values 0
+    public int create(int components) {
+        int id;
+        if (freeCount > 0) {
+            id = free[--freeCount];
+            clear(id);
+        } else {
+            if (created == capacity) {
+                grow();
+            }
+            id = created++;
+        }
+        this.components[id] = components & ~(ACTIVE | DESTROYED);
+        activate(id);
+        return id;
+    }
+
+    public void destroy(int id) {
+        // the id would go on the free list twice and be handed out to two entities
+        if ((components[id] & DESTROYED) != 0) {
+            throw new IllegalStateException("entity " + id + " is already destroyed");
+        }
+        deactivate(id);
+        components[id] = DESTROYED;
+        free[freeCount++] = id;
+    }
+
+    public void activate(int id) {
+        if ((components[id] & ACTIVE) == 0) {
+            components[id] |= ACTIVE;
+            activeCount++;
+        }
+    }
+
+    public void deactivate(int id) {
+        if ((components[id] & ACTIVE) != 0) {
+            components[id] &= ~ACTIVE;
+            activeCount--;
+        }
+    }
+
+    public boolean isActive(int id) {
+        return (components[id] & ACTIVE) != 0;
+    }
+
+    public int activeCount() {
+        return activeCount;
+    }
+
+    // the systems every tick runs over the active entities
+
+    // rendering interpolates from these values to the ones of the tick about to run
+    public void storePreviousState() {
+        int[] components = this.components;
+        for (int id = 0; id < created; id++) {
+            if ((components[id] & (ACTIVE | TRANSFORM)) == (ACTIVE | TRANSFORM)) {
+                storePreviousState(id);
+            }
+        }
+    }
+
+    // same for one entity, e.g. one that jumps and should not slide there
+    public void storePreviousState(int id) {
+        prevAngleY[id] = angleY[id];
+        prevAngleZ[id] = angleZ[id];
+        prevPosX[id] = posX[id];
+        prevPosY[id] = posY[id];
+    }
+
+    // storePreviousState(), then every entity turns by its rotation; one
+    // pass instead of two, the entities' own updates do not read the angles
+    public void storePreviousStateAndSpin() {
+        int[] components = this.components;
+        float[] posX = this.posX, posY = this.posY, angleY = this.angleY, angleZ = this.angleZ;
+        float[] prevPosX = this.prevPosX, prevPosY = this.prevPosY;
+        float[] prevAngleY = this.prevAngleY, prevAngleZ = this.prevAngleZ;
+        float[] rotationY = this.rotationY, rotationZ = this.rotationZ;
+        for (int id = 0; id < created; id++) {
+            if ((components[id] & (ACTIVE | TRANSFORM)) == (ACTIVE | TRANSFORM)) {
+                float y = angleY[id];
+                float z = angleZ[id];
+                prevAngleY[id] = y;
+                prevAngleZ[id] = z;
+                prevPosX[id] = posX[id];
+                prevPosY[id] = posY[id];
+                angleY[id] = y + rotationY[id];
+                angleZ[id] = z + rotationZ[id];
+            }
+        }
+    }
+
+    // the physics system, in id order. The ball is swept against the
+    // paddles by Simulation.moveBall instead and has neither rule.
+    public void movePhysics() {
+        int[] components = this.components;
+        for (int id = 0; id < created; id++) {
+            int mask = components[id];
+            if ((mask & (ACTIVE | PHYSICS)) != (ACTIVE | PHYSICS)) {
+                continue;
+            }
+            if ((mask & PADDLE) != 0) {
+                movePaddle(id);
+            } else if ((mask & DRIFT) != 0) {
+                drift(id);
+            }
+        }
+    }
+
+    private void movePaddle(int id) {
+        float velocity = (velocityY[id] + accelerationY[id]) * damping[id];
+        velocityY[id] = velocity;
+        float y = posY[id] + velocity;
+        if (y >= 0.8f) {
+            y = 0.8f;
+        }
+        if (y <= -0.8f) {
+            y = -0.8f;
+        }
+        posY[id] = y;
+
+        // the collider follows
+        float x = posX[id];
+        borderLeft[id] = x - scaleX[id] / 4f;
+        borderRight[id] = x + scaleX[id] / 4f;
+        borderUp[id] = y + scaleY[id];
+        borderDown[id] = y - scaleY[id];
+    }
+
+    private void drift(int id) {
+        float y = posY[id];
+        float velocity = velocityY[id];
+        if (y > 1f) {
+            y = 1f;
+            velocity = -velocity;
+        }
+        if (y < -1f) {
+            y = -1f;
+            velocity = -velocity;
+        }
+        posY[id] = y + velocity;
+        velocityY[id] = velocity;
+    }
+
+    private void clear(int id) {
+        posX[id] = posY[id] = 0;
+        angleX[id] = angleY[id] = angleZ[id] = 0;
+        rotationY[id] = rotationZ[id] = 0;
+        prevPosX[id] = prevPosY[id] = prevAngleY[id] = prevAngleZ[id] = 0;
+        velocityX[id] = velocityY[id] = 0;
+        accelerationY[id] = damping[id] = 0;
+        scaleX[id] = scaleY[id] = scaleZ[id] = 0;
+        borderLeft[id] = borderRight[id] = borderUp[id] = borderDown[id] = 0;
+        sizeX[id] = sizeY[id] = sizeZ[id] = 0;
+    }
+
+    // entity handles read the arrays through the store, so replacing them is safe
+    private void grow() {
+        capacity *= 2;
+        components = Arrays.copyOf(components, capacity);
+        free = Arrays.copyOf(free, capacity);
+        posX = Arrays.copyOf(posX, capacity);
+        posY = Arrays.copyOf(posY, capacity);
+        angleX = Arrays.copyOf(angleX, capacity);
+        angleY = Arrays.copyOf(angleY, capacity);
+        angleZ = Arrays.copyOf(angleZ, capacity);
+        rotationY = Arrays.copyOf(rotationY, capacity);
+        rotationZ = Arrays.copyOf(rotationZ, capacity);
+        prevPosX = Arrays.copyOf(prevPosX, capacity);
+        prevPosY = Arrays.copyOf(prevPosY, capacity);
+        prevAngleY = Arrays.copyOf(prevAngleY, capacity);
+        prevAngleZ = Arrays.copyOf(prevAngleZ, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        accelerationY = Arrays.copyOf(accelerationY, capacity);
+        damping = Arrays.copyOf(damping, capacity);
+        scaleX = Arrays.copyOf(scaleX, capacity);
+        scaleY = Arrays.copyOf(scaleY, capacity);
+        scaleZ = Arrays.copyOf(scaleZ, capacity);
+        borderLeft = Arrays.copyOf(borderLeft, capacity);
+        borderRight = Arrays.copyOf(borderRight, capacity);
+        borderUp = Arrays.copyOf(borderUp, capacity);
+        borderDown = Arrays.copyOf(borderDown, capacity);
+        sizeX = Arrays.copyOf(sizeX, capacity);
+        sizeY = Arrays.copyOf(sizeY, capacity);
+        sizeZ = Arrays.copyOf(sizeZ, capacity);
+    }
+}
@@ -0,0 +1,175 @@
+package pong3d;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import com.jogamp.opengl.GL3;
+
+// Shadows the GL state the renderer touches per draw (program, vertex
+// array, buffer bindings, textures and scalar uniforms) and skips
+// calls that would not change it. Every call issued through this class
+// is counted, so the number of GL calls per frame can be reported.
+//
+// Code that changes the same state behind the tracker's back (e.g. asset
+// uploads) has to call invalidate() afterwards.
+class GlState {
+    static final int MAX_TEXTURE_UNITS = 16;
+    static final int MAX_UNIFORM_LOCATIONS = 64;
+    static final int MAX_UNIFORM_BINDINGS = 8;
+
+    private GL3 gl;
+    private long calls;
+
+    private int program;
+    private int vertexArray;
+    private int arrayBuffer;
+    private int uniformBuffer;
+    private final int[] rangeBuffers = new int[MAX_UNIFORM_BINDINGS];
+    private final long[] rangeOffsets = new long[MAX_UNIFORM_BINDINGS];
+    private int activeTexture;
+    private final int[] textures = new int[MAX_TEXTURE_UNITS];
+    // raw bits of int and float uniforms of the current program, indexed by location
+    private final int[] uniformValues = new int[MAX_UNIFORM_LOCATIONS];
+    private final boolean[] uniformSet = new boolean[MAX_UNIFORM_LOCATIONS];
+
+    public GlState() {
+        invalidate();
+    }
+
+    // has to be called once per frame before any other method
+    public void setGL(GL3 gl) {
+        this.gl = gl;
+    }
+
+    public void invalidate() {
+        program = -1;
+        vertexArray = -1;
+        arrayBuffer = -1;
+        uniformBuffer = -1;
+        Arrays.fill(rangeBuffers, -1);
+        activeTexture = -1;
+        Arrays.fill(textures, -1);
+        Arrays.fill(uniformSet, false);
+    }
+
+    public long calls() {
+        return calls;
+    }
+
+    public void resetCalls() {
+        calls = 0;
+    }
+
+    public void useProgram(int progID) {
+        if (progID != program) {
+            gl.glUseProgram(progID);
+            calls++;
+            program = progID;
+            // uniform values are per program
+            Arrays.fill(uniformSet, false);
+        }
+    }
+
+    public void bindVertexArray(int vaoID) {
+        if (vaoID != vertexArray) {
+            gl.glBindVertexArray(vaoID);
+            calls++;
+            vertexArray = vaoID;
+        }
+    }
+
+    public void bindArrayBuffer(int bufID) {
+        if (bufID != arrayBuffer) {
+            gl.glBindBuffer(GL3.GL_ARRAY_BUFFER, bufID);
+            calls++;
+            arrayBuffer = bufID;
+        }
+    }
+
+    // replaces the start of the buffer with the remaining contents of data
+    public void bufferSubData(int bufID, FloatBuffer data) {
+        bindArrayBuffer(bufID);
+        gl.glBufferSubData(GL3.GL_ARRAY_BUFFER, 0, (long) data.remaining() * Float.BYTES, data);
+        calls++;
+    }
+
+    // replaces the start of the uniform buffer with the remaining contents of data
+    public void uniformBufferSubData(int bufID, ByteBuffer data) {
+        if (bufID != uniformBuffer) {
+            gl.glBindBuffer(GL3.GL_UNIFORM_BUFFER, bufID);
+            calls++;
+            uniformBuffer = bufID;
+        }
+        gl.glBufferSubData(GL3.GL_UNIFORM_BUFFER, 0, data.remaining(), data);
+        calls++;
+    }
+
+    // binds a range of a uniform buffer to a uniform block binding point
+    public void bindBufferRange(int binding, int bufID, long offset, long size) {
+        if (rangeBuffers[binding] == bufID && rangeOffsets[binding] == offset) {
+            return;
+        }
+        gl.glBindBufferRange(GL3.GL_UNIFORM_BUFFER, binding, bufID, offset, size);
+        calls++;
+        rangeBuffers[binding] = bufID;
+        rangeOffsets[binding] = offset;
+        // glBindBufferRange also changes the generic binding
+        uniformBuffer = bufID;
+    }
+
+    public void bindTexture(int unit, int texID) {
+        if (textures[unit] == texID) {
+            return;
+        }
+        if (activeTexture != unit) {
+            gl.glActiveTexture(GL3.GL_TEXTURE0 + unit);
+            calls++;
+            activeTexture = unit;
+        }
+        gl.glBindTexture(GL3.GL_TEXTURE_2D, texID);
+        calls++;
+        textures[unit] = texID;
+    }
+
+    public void uniform1i(int location, int value) {
+        if (isCurrent(location, value)) {
+            return;
+        }
+        gl.glUniform1i(location, value);
+        calls++;
+    }
+
+    public void drawArrays(int mode, int first, int count) {
+        gl.glDrawArrays(mode, first, count);
+        calls++;
+    }
+
+    public void drawArraysInstanced(int mode, int first, int count, int instances) {
+        gl.glDrawArraysInstanced(mode, first, count, instances);
+        calls++;
+    }
+
+    public void clear(float r, float g, float b, float a, int mask) {
+        gl.glClearColor(r, g, b, a);
+        gl.glClear(mask);
+        calls += 2;
+    }
+
+    // returns true if the uniform already holds the value, otherwise records it
+    private boolean isCurrent(int location, int bits) {
+        if (location < 0) {
+            // inactive uniform, the call would be ignored anyway
+            return true;
+        }
+        if (location >= MAX_UNIFORM_LOCATIONS) {
+            return false;
+        }
+        if (uniformSet[location] && uniformValues[location] == bits) {
+            return true;
+        }
+        uniformSet[location] = true;
+        uniformValues[location] = bits;
+        return false;
+    }
+}
@@ -0,0 +1,100 @@
+package pong3d;
+
+// Steps the simulation without a window or GL context and reports the tick
+// rate. Both paddles follow the ball and a paused game is served again, so
+// the run never stalls.
+//
+// Then it checks that a lower tick rate does not let the ball tunnel
+// through a paddle: at 1/2, 1/4 and 1/8 of the tick rate a tick moves the
+// ball 2, 4 and 8 times as far, up to several paddle widths. Shots aimed
+// at a still paddle must all bounce off it; exits with status 1 if one
+// goes through.
+//
+// usage: java -cp game/target/classes pong3d.HeadlessRunner [ticks]
+class HeadlessRunner {
+    public static void main(String[] args) {
+        long ticks = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+
+        Simulation simulation = new Simulation();
+        // warm up so the measured run is compiled code
+        run(simulation, ticks / 10);
+
+        long start = System.nanoTime();
+        run(simulation, ticks);
+        long nanos = System.nanoTime() - start;
+
+        System.out.printf("%d ticks in %.1f ms, %.0f ticks/s (%.0fx real time)%n", ticks, nanos / 1e6,
+                ticks * 1e9 / nanos, ticks * 1e9 / nanos / Simulation.TICK_RATE);
+        System.out.printf("Score %d : %d%n", simulation.scoreOne.getScore(), simulation.scoreTwo.getScore());
+
+        boolean tunnelled = false;
+        for (int divisor = 1; divisor <= 8; divisor *= 2) {
+            int through = shootAtPaddle(TUNNELLING_SHOTS, divisor);
+            System.out.printf("1/%d of the tick rate (%d Hz): %d of %d shots through the paddle%n", divisor,
+                    Simulation.TICK_RATE / divisor, through, TUNNELLING_SHOTS);
+            tunnelled |= through > 0;
+        }
+        if (tunnelled) {
+            System.exit(1);
+        }
+    }
+
+    static final int TUNNELLING_SHOTS = 2000;
+    // no power-ups, a pickup could shrink the paddle out of the ball's way
+    static final SimulationTuning NO_POWER_UPS = new SimulationTuning(SimulationTuning.DEFAULT.acceleration,
+            SimulationTuning.DEFAULT.damping, SimulationTuning.DEFAULT.spin, 10000);
+
+    // Returns how many balls went through player two's paddle. Each shot
+    // starts in the middle of the court at up to three times the serve
+    // speed, times divisor, and is aimed to meet the face within 80% of
+    // the paddle's half height, so it has to bounce back.
+    static int shootAtPaddle(int shots, int divisor) {
+        int through = 0;
+        for (int shot = 0; shot < shots; shot++) {
+            SimulationRandom random = new SimulationRandom(shot);
+            Simulation simulation = new Simulation(shot, NO_POWER_UPS);
+            Player paddle = simulation.playerTwo;
+            Ball ball = simulation.ball;
+            paddle.setPosY(random.nextFloat() * 0.8f - 0.4f);
+            paddle.storePreviousState();
+            simulation.pauseGame = false;
+
+            float velocityX = (0.03f + random.nextFloat() * 0.06f) * divisor;
+            float velocityY = (random.nextFloat() * 0.5f - 0.25f) * velocityX;
+            float startX = 0.5f;
+            float faceX = paddle.posX() - paddle.scaleX() / 4f - ball.scaleX();
+            float aimY = paddle.posY() + (random.nextFloat() * 1.6f - 0.8f) * paddle.scaleY();
+            ball.setPosX(startX);
+            ball.setPosY(aimY - velocityY * (faceX - startX) / velocityX);
+            ball.setVelocityX(velocityX);
+            ball.setVelocityY(velocityY);
+            ball.storePreviousState();
+
+            for (int tick = 0; tick < 1000 && ball.velocityX() > 0; tick++) {
+                simulation.update();
+                if (simulation.pauseGame) {
+                    through++;
+                    break;
+                }
+            }
+        }
+        return through;
+    }
+
+    static void run(Simulation simulation, long ticks) {
+        for (long i = 0; i < ticks; i++) {
+            if (simulation.pauseGame) {
+                simulation.startGame();
+            }
+            track(simulation.playerOne, simulation.ball);
+            track(simulation.playerTwo, simulation.ball);
+            simulation.update();
+        }
+    }
+
+    // moves the paddle towards the ball
+    static void track(Player player, Ball ball) {
+        player.moveUp = ball.posY() > player.posY() + 0.05f;
+        player.moveDown = ball.posY() < player.posY() - 0.05f;
+    }
+}
@@ -0,0 +1,225 @@
+package pong3d;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Single producer, single consumer ring of timestamped key events, from the
+// AWT event thread to the thread that ticks the simulation. Events are the
+// ReplayFormat input bits, pressed or released. The producer stores the
+// slot and then publishes its index with a release write, the consumer
+// reads the index with an acquire read and then the slot; no locks and no
+// allocation on either side.
+//
+// poll() turns the events into the inputs of one tick. A key pressed and
+// released again between two ticks still counts as held for the next
+// tick, so a fast tap moves the paddle instead of getting lost. The
+// producer drops key repeats, only changes go into the ring, so it does
+// not fill up while a key is held and the ticks are stalled.
+//
+// Two latencies are kept: from the key event to the tick that applies it,
+// and to the end of the frame that first shows that tick.
+class InputQueue {
+    static final int CAPACITY = 256;
+    private static final int MASK = CAPACITY - 1;
+    private static final int RELEASED = 0x100;
+
+    private final int[] events = new int[CAPACITY];
+    private final long[] times = new long[CAPACITY];
+    // next slot to write and next slot to read
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    // producer only: keys held as far as the producer knows and its view of head
+    private int producerHeld;
+    private long cachedHead;
+    // releases that did not fit in the ring, in the low half, and in the high
+    // half the ring position they belong at. The producer sends them before
+    // its next event, poll() applies them once it has read up to there, so
+    // they reach the next tick without waiting for another key event. Until
+    // then the producer only sends releases, which do not change the order
+    // of a key's own events.
+    private final AtomicLong pendingRelease = new AtomicLong();
+    // events lost because the ring was full; a dropped press is sent again
+    // with the key's next repeat, a dropped release stays pending
+    volatile long dropped;
+
+    // consumer only
+    private int held;
+    private final long[] applied = new long[CAPACITY];
+    private int appliedCount;
+
+    final LatencyHistogram toTick = new LatencyHistogram();
+    final LatencyHistogram toFrame = new LatencyHistogram();
+
+    // producer side, on the AWT event thread; false if the ring is full
+    public boolean press(int input) {
+        if (!flushReleases()) {
+            return false;
+        }
+        if ((producerHeld & input) != 0) {
+            return true;
+        }
+        if (!offer(input, System.nanoTime())) {
+            return false;
+        }
+        producerHeld |= input;
+        return true;
+    }
+
+    public boolean release(int input) {
+        if ((producerHeld & input) != 0) {
+            producerHeld &= ~input;
+            long pending, position;
+            do {
+                pending = pendingRelease.get();
+                position = pending == 0 ? tail.get() : pending >>> 32;
+            } while (!pendingRelease.compareAndSet(pending, position << 32 | (int) pending | input));
+        }
+        return flushReleases();
+    }
+
+    // sends the pending releases, lowest bit first; false if one still did
+    // not fit, then a press must wait too or the consumer would see it first.
+    // A release poll() took meanwhile arrives twice, which changes nothing.
+    private boolean flushReleases() {
+        long pending;
+        while ((pending = pendingRelease.get()) != 0) {
+            int input = Integer.lowestOneBit((int) pending);
+            if (!offer(input | RELEASED, System.nanoTime())) {
+                return false;
+            }
+            long left;
+            do {
+                pending = pendingRelease.get();
+                left = ((int) pending & ~input) == 0 ? 0 : pending & ~input;
+            } while (!pendingRelease.compareAndSet(pending, left));
+        }
+        return true;
+    }
+
+    private boolean offer(int event, long nanos) {
+        long t = tail.get();
+        if (t - cachedHead >= CAPACITY) {
+            cachedHead = head.getAcquire();
+            if (t - cachedHead >= CAPACITY) {
+                dropped++;
+                return false;
+            }
+        }
+        int slot = (int) t & MASK;
+        events[slot] = event;
+        times[slot] = nanos;
+        tail.setRelease(t + 1);
+        return true;
+    }
+
+    // consumer side, once per tick: the ReplayFormat inputs to step with
+    public int poll() {
+        long h = head.get();
+        long t = tail.getAcquire();
+        int tapped = 0;
+        long now = t > h ? System.nanoTime() : 0;
+        for (; h < t; h++) {
+            int slot = (int) h & MASK;
+            int event = events[slot];
+            long nanos = times[slot];
+            int input = event & ~RELEASED;
+            if ((event & RELEASED) != 0) {
+                held &= ~input;
+            } else {
+                held |= input;
+                tapped |= input;
+            }
+            toTick.record(now - nanos);
+            if (appliedCount < CAPACITY) {
+                applied[appliedCount++] = nanos;
+            }
+        }
+        head.setRelease(h);
+        long pending = pendingRelease.get();
+        // the ring position is stored in 32 bits, the difference survives the wrap
+        while (pending != 0 && (int) h - (int) (pending >>> 32) >= 0) {
+            if (pendingRelease.compareAndSet(pending, 0)) {
+                held &= ~(int) pending;
+                break;
+            }
+            pending = pendingRelease.get();
+        }
+        // serve is a single press, not a held key
+        held &= ~ReplayFormat.INPUT_SERVE;
+        return held | tapped;
+    }
+
+    // consumer side, after a frame is drawn: the events of the ticks it shows have reached the screen
+    public void frameShown() {
+        if (appliedCount == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (int i = 0; i < appliedCount; i++) {
+            toFrame.record(now - applied[i]);
+        }
+        appliedCount = 0;
+    }
+
+    public String summary() {
+        return String.format("input to tick %s; input to frame %s; %d dropped", toTick.summary(), toFrame.summary(),
+                dropped);
+    }
+
+    // a release dropped on a full ring must still reach the next tick when
+    // no other key event follows; then one thread taps a key as fast as the ring
+    // takes it while this one polls, a test of the ring under contention;
+    // nothing may get lost
+    public static void main(String[] args) throws InterruptedException {
+        long events = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        System.out.println("dropped release reaches the next tick: " + (checkDroppedRelease() ? "OK" : "FAIL"));
+
+        InputQueue queue = new InputQueue();
+        Thread producer = new Thread(() -> {
+            for (long i = 0; i < events; i++) {
+                while (!queue.press(ReplayFormat.INPUT_ONE_UP)) {
+                    Thread.yield();
+                }
+                while (!queue.release(ReplayFormat.INPUT_ONE_UP)) {
+                    Thread.yield();
+                }
+            }
+        }, "producer");
+        long polls = 0;
+        long start = System.nanoTime();
+        producer.start();
+        long taps = 0;
+        while (producer.isAlive() || queue.head.get() < queue.tail.get()) {
+            if ((queue.poll() & ReplayFormat.INPUT_ONE_UP) != 0) {
+                taps++;
+            }
+            queue.frameShown();
+            polls++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long consumed = queue.head.get();
+        System.out.printf("%d of %d events through in %.2f s (%.2f M events/s), %d polls%n", consumed, 2 * events,
+                seconds, consumed / seconds / 1e6, polls);
+        System.out.printf("%d polls held the key; ring full %d times; queue latency %s%n", taps, queue.dropped,
+                queue.toTick.summary());
+    }
+
+    static boolean checkDroppedRelease() {
+        InputQueue queue = new InputQueue();
+        queue.press(ReplayFormat.INPUT_ONE_UP);
+        // fill the rest of the ring with taps of another key, ending held
+        for (int i = 1; i < CAPACITY - 1; i += 2) {
+            queue.press(ReplayFormat.INPUT_TWO_UP);
+            queue.release(ReplayFormat.INPUT_TWO_UP);
+        }
+        queue.press(ReplayFormat.INPUT_TWO_UP);
+        boolean dropped = !queue.release(ReplayFormat.INPUT_ONE_UP);
+        // the press and the release in one tick count as a tap
+        boolean tapped = (queue.poll() & ReplayFormat.INPUT_ONE_UP) != 0;
+        // no key event since, the key still has to be up in the next tick
+        boolean released = (queue.poll() & ReplayFormat.INPUT_ONE_UP) == 0;
+        boolean pressed = queue.press(ReplayFormat.INPUT_ONE_UP);
+        boolean heldAgain = (queue.poll() & ReplayFormat.INPUT_ONE_UP) != 0;
+        return dropped && tapped && released && pressed && heldAgain;
+    }
+}
@@ -0,0 +1,92 @@
+package pong3d;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Log-linear histogram of durations in nanoseconds: 16 buckets per power of
+// two, so percentiles are within 1/16 of the true value. Recording is one
+// atomic increment and safe from any number of threads.
+class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long nanos) {
+        counts.incrementAndGet(bucket(Math.max(0, nanos)));
+    }
+
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    // upper bound of the bucket holding the given fraction of the values, e.g. 0.99
+    public long percentile(double fraction) {
+        long count = count();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= Math.max(1, rank)) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    public long max() {
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (counts.get(i) != 0) {
+                return upperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    // adds the other histogram's values to this one
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.addAndGet(i, other.counts.get(i));
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    // values below SUB_BUCKETS have a bucket each, above the top SUB_BITS
+    // after the highest bit pick one of the power of two's buckets
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (highestBit - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (highestBit - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int highestBit = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long lower = (1L << highestBit) | sub << (highestBit - SUB_BITS);
+        return lower + (1L << (highestBit - SUB_BITS)) - 1;
+    }
+
+    // p50, p99, p99.9 and max in microseconds
+    public String summary() {
+        return String.format("p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us",
+                percentile(0.5) / 1e3, percentile(0.99) / 1e3, percentile(0.999) / 1e3, max() / 1e3);
+    }
+}
@@ -0,0 +1,128 @@
+package pong3d;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+// Binary, memory-mapped version of the text .vbo files.
+//
+// File layout (little-endian):
+//   int   magic          "PVBO"
+//   int   version
+//   int   vertexCount
+//   int   layout         component count per attribute, one byte each
+//                        (position, color, texture, normal)
+//   int   checksum       CRC32 of the vertex data
+//   int[] reserved       pads the header to HEADER_SIZE bytes
+//   float vertexData[vertexCount * floatsPerVertex(layout)]
+class MeshFile {
+    static final int MAGIC = 0x4F425650; // "PVBO"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int LAYOUT_PCTN = (3 << 24) | (4 << 16) | (2 << 8) | 3;
+    static final String CACHE_DIR = "cache/mesh";
+
+    final int vertexCount;
+    final int layout;
+    // direct buffer holding only the interleaved vertex data, ready for glBufferData
+    final ByteBuffer vertexData;
+
+    private MeshFile(int vertexCount, int layout, ByteBuffer vertexData) {
+        this.vertexCount = vertexCount;
+        this.layout = layout;
+        this.vertexData = vertexData;
+    }
+
+    static int floatsPerVertex(int layout) {
+        return (layout >>> 24) + ((layout >>> 16) & 0xff) + ((layout >>> 8) & 0xff) + (layout & 0xff);
+    }
+
+    // location of the binary cache for a text .vbo file, e.g. src/ball.vbo -> cache/mesh/ball.vbo.bin
+    static Path cachePath(String vboFilename) {
+        return Paths.get(CACHE_DIR, Paths.get(vboFilename).getFileName() + ".bin");
+    }
+
+    // the cache has to be rebuilt if it is missing or older than its text source
+    static boolean isStale(Path binPath, String vboFilename) throws IOException {
+        if (!Files.exists(binPath)) {
+            return true;
+        }
+        Path vboPath = Paths.get(vboFilename);
+        return Files.exists(vboPath)
+                && Files.getLastModifiedTime(vboPath).compareTo(Files.getLastModifiedTime(binPath)) > 0;
+    }
+
+    static void write(Path binPath, float[] vertexData, int layout) throws IOException {
+        int perVertexFloats = floatsPerVertex(layout);
+        ByteBuffer data = ByteBuffer.allocate(vertexData.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        data.asFloatBuffer().put(vertexData);
+
+        CRC32 crc = new CRC32();
+        crc.update(data.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(vertexData.length / perVertexFloats);
+        header.putInt(layout);
+        header.putInt((int) crc.getValue());
+        header.rewind();
+
+        // write to a temporary file first so a crash never leaves a truncated cache behind
+        Files.createDirectories(binPath.toAbsolutePath().getParent());
+        Path tmpPath = binPath.resolveSibling(binPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining() || data.hasRemaining()) {
+                channel.write(new ByteBuffer[]{header, data});
+            }
+        }
+        Files.move(tmpPath, binPath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static MeshFile map(Path binPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(binPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Truncated mesh file " + binPath);
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            int magic = mapped.getInt(0);
+            int version = mapped.getInt(4);
+            int vertexCount = mapped.getInt(8);
+            int layout = mapped.getInt(12);
+            int checksum = mapped.getInt(16);
+            if (magic != MAGIC || version != VERSION) {
+                throw new IOException("Unsupported mesh file " + binPath);
+            }
+            long dataSize = (long) vertexCount * floatsPerVertex(layout) * Float.BYTES;
+            if (HEADER_SIZE + dataSize != size) {
+                throw new IOException("Corrupt mesh file " + binPath);
+            }
+
+            ByteBuffer vertexData = mapped.position(HEADER_SIZE).slice().order(ByteOrder.LITTLE_ENDIAN);
+            CRC32 crc = new CRC32();
+            crc.update(vertexData.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("Checksum mismatch in mesh file " + binPath);
+            }
+
+            if (ByteOrder.nativeOrder() != ByteOrder.LITTLE_ENDIAN) {
+                // glBufferData copies raw bytes, so big-endian hosts need a swapped copy
+                ByteBuffer nativeData = ByteBuffer.allocateDirect(vertexData.capacity()).order(ByteOrder.nativeOrder());
+                nativeData.asFloatBuffer().put(vertexData.asFloatBuffer());
+                vertexData = nativeData;
+            }
+            return new MeshFile(vertexCount, layout, vertexData);
+        }
+    }
+
+    static MeshFile empty(int layout) {
+        return new MeshFile(0, layout, ByteBuffer.allocateDirect(0));
+    }
+}
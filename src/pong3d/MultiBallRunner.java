@@ -0,0 +1,58 @@
+package pong3d;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Runs the multi-ball stress mode headless and prints ticks per second
+// against ball count for every kernel, to show where each one stops scaling.
+//
+// usage: java --add-modules jdk.incubator.vector -cp game/target/classes pong3d.MultiBallRunner [maxBalls] [seconds]
+// without the module the vector kernels are skipped
+class MultiBallRunner {
+    public static void main(String[] args) {
+        int maxBalls = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 1.0;
+        boolean vectorAvailable = MultiBallSimulation.vectorAvailable();
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        System.out.printf("%d cores, fork/join parallelism %d, vector kernel %s%n",
+                Runtime.getRuntime().availableProcessors(), pool.getParallelism(),
+                vectorAvailable ? BallFieldVector.SPECIES.length() + " lanes" : "not available");
+        System.out.printf("%10s %10s %10s %12s %14s%n", "balls", "kernel", "runner", "ticks/s", "ball ticks/s");
+
+        for (int balls = 1000; balls <= maxBalls; balls *= 10) {
+            run(balls, false, null, seconds);
+            run(balls, false, pool, seconds);
+            if (vectorAvailable) {
+                run(balls, true, null, seconds);
+                run(balls, true, pool, seconds);
+            }
+            // also measure the largest count if it is not a power of ten
+            if (balls < maxBalls && balls * 10 > maxBalls) {
+                balls = maxBalls / 10;
+            }
+        }
+    }
+
+    static void run(int balls, boolean vector, ForkJoinPool pool, double seconds) {
+        MultiBallSimulation simulation = new MultiBallSimulation(balls, 42, vector, pool);
+        // warm up so the measured run is compiled code
+        runFor(simulation, seconds / 2);
+        long ticks = simulation.ticks;
+        long start = System.nanoTime();
+        runFor(simulation, seconds);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        double ticksPerSecond = (simulation.ticks - ticks) / elapsed;
+
+        System.out.printf("%10d %10s %10s %12.0f %14.3e%n", balls, vector ? "vector" : "scalar",
+                pool == null ? "caller" : "fj-" + pool.getParallelism(), ticksPerSecond, ticksPerSecond * balls);
+    }
+
+    private static void runFor(MultiBallSimulation simulation, double seconds) {
+        long end = System.nanoTime() + (long) (seconds * 1e9);
+        while (System.nanoTime() < end) {
+            for (int i = 0; i < 10; i++) {
+                simulation.update();
+            }
+        }
+    }
+}
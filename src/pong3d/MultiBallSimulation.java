@@ -0,0 +1,98 @@
+package pong3d;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Stress mode: a BallField of many balls against the two paddles of the
+// normal game. The paddles follow the ball closest to them. The ball loop
+// runs either on the calling thread or split into chunks on a fork/join
+// pool, each chunk with the scalar or the Vector API kernel.
+class MultiBallSimulation {
+    // balls per fork/join leaf, large enough to amortize the task overhead
+    static final int CHUNK = 8192;
+
+    final BallField balls;
+    final EntityStore entities = new EntityStore(2);
+    final Player playerOne = new Player(entities, -1.8f, 0f, -90);
+    final Player playerTwo = new Player(entities, 1.8f, 0f, 90);
+    final BallField.Paddles paddles = new BallField.Paddles();
+    final boolean vector;
+    // null runs on the calling thread
+    final ForkJoinPool pool;
+    long ticks;
+
+    public MultiBallSimulation(int count, long seed, boolean vector, ForkJoinPool pool) {
+        if (vector && !vectorAvailable()) {
+            throw new IllegalStateException("The vector kernel needs --add-modules jdk.incubator.vector");
+        }
+        this.balls = new BallField(count, new Random(seed));
+        this.vector = vector;
+        this.pool = pool;
+    }
+
+    // here and not in BallFieldVector, whose initialization needs the module
+    static boolean vectorAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    public void update() {
+        trackNearest(playerOne, -1);
+        trackNearest(playerTwo, 1);
+        playerOne.steer();
+        playerTwo.steer();
+        entities.movePhysics();
+        paddles.set(playerOne, playerTwo);
+
+        if (pool == null || balls.count <= CHUNK) {
+            step(0, balls.count);
+        } else {
+            pool.invoke(new StepTask(0, balls.count));
+        }
+        ticks++;
+    }
+
+    void step(int from, int to) {
+        if (vector) {
+            BallFieldVector.step(balls, from, to, paddles);
+        } else {
+            balls.step(from, to, paddles);
+        }
+    }
+
+    // moves the paddle towards the ball that is closest to its side and coming in
+    private void trackNearest(Player player, float side) {
+        // scanning all balls would cost as much as the physics, a fixed sample is enough
+        int stride = Math.max(1, balls.count / 256);
+        float bestX = -Float.MAX_VALUE;
+        float targetY = player.posY();
+        for (int i = 0; i < balls.count; i += stride) {
+            float x = balls.posX[i] * side;
+            if (x > bestX && balls.velocityX[i] * side > 0) {
+                bestX = x;
+                targetY = balls.posY[i];
+            }
+        }
+        player.moveUp = targetY > player.posY() + 0.05f;
+        player.moveDown = targetY < player.posY() - 0.05f;
+    }
+
+    class StepTask extends RecursiveAction {
+        final int from, to;
+
+        StepTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                step(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new StepTask(from, mid), new StepTask(mid, to));
+        }
+    }
+}
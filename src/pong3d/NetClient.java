@@ -0,0 +1,144 @@
+package pong3d;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+// Client side of the networked mode. It never steps its simulation, the
+// simulation only holds the newest snapshot from the server for drawing.
+// Decoded snapshots are kept for NetProtocol.HISTORY ticks, as the server
+// may delta-compress against any of them that was acknowledged.
+class NetClient {
+    final Simulation simulation = new Simulation();
+    private final DatagramChannel channel;
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(NetProtocol.MAX_PACKET_SIZE);
+    private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(NetProtocol.INPUT_SIZE);
+
+    private final int[][] snapshots = new int[NetProtocol.HISTORY][NetState.FIELDS];
+    private final int[] snapshotTicks = new int[NetProtocol.HISTORY];
+    private final int[] zeros = new int[NetState.FIELDS];
+
+    // paddle controlled by this client, -1 for spectators or before the first snapshot
+    int player = -1;
+    int latestTick = -1;
+    private int sequence;
+
+    // drops this share of the received snapshots, to try the deltas under loss
+    float dropRate;
+    private final Random dropRandom = new Random(1);
+
+    // statistics
+    long bytesReceived;
+    long packetsReceived;
+    long fullSnapshots;
+    long undecodable;
+    long hashMismatches;
+
+    public NetClient(InetSocketAddress server) throws IOException {
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(server);
+        Arrays.fill(snapshotTicks, -1);
+    }
+
+    // host:port, port defaulting to NetServer.DEFAULT_PORT
+    static NetClient connect(String address) throws IOException {
+        int colon = address.lastIndexOf(':');
+        String host = colon < 0 ? address : address.substring(0, colon);
+        int port = colon < 0 ? NetServer.DEFAULT_PORT : Integer.parseInt(address.substring(colon + 1));
+        return new NetClient(new InetSocketAddress(host, port));
+    }
+
+    public void sendInput(int buttons) {
+        sendBuffer.clear();
+        NetProtocol.writeInput(sendBuffer, sequence++, latestTick, buttons);
+        sendBuffer.flip();
+        try {
+            channel.write(sendBuffer);
+        } catch (IOException e) {
+            // e.g. the server is not up yet, the next input tries again
+        }
+    }
+
+    // decodes all waiting snapshots and applies the newest to the simulation;
+    // returns true if there was a newer one
+    public boolean poll() {
+        int newest = -1;
+        while (true) {
+            receiveBuffer.clear();
+            int bytes;
+            try {
+                bytes = channel.read(receiveBuffer);
+            } catch (IOException e) {
+                return applyNewest(newest);
+            }
+            if (bytes <= 0) {
+                return applyNewest(newest);
+            }
+            if (dropRate > 0 && dropRandom.nextFloat() < dropRate) {
+                continue;
+            }
+            receiveBuffer.flip();
+            if (bytes < NetProtocol.SNAPSHOT_HEADER_SIZE || receiveBuffer.get() != NetProtocol.SNAPSHOT) {
+                continue;
+            }
+            bytesReceived += bytes;
+            packetsReceived++;
+            int tick = receiveBuffer.getInt();
+            int baselineTick = receiveBuffer.getInt();
+            int player = receiveBuffer.get();
+            int hash = receiveBuffer.getInt();
+
+            if (tick <= latestTick - NetProtocol.HISTORY) {
+                // too late to be useful, and it would overwrite a newer snapshot
+                continue;
+            }
+            int[] baseline;
+            if (baselineTick < 0) {
+                baseline = zeros;
+                fullSnapshots++;
+            } else if (snapshotTicks[baselineTick % NetProtocol.HISTORY] == baselineTick) {
+                baseline = snapshots[baselineTick % NetProtocol.HISTORY];
+            } else {
+                // we no longer have the baseline, an ack will get us a usable one
+                undecodable++;
+                continue;
+            }
+            int[] state = snapshots[tick % NetProtocol.HISTORY];
+            NetProtocol.readSnapshotFields(receiveBuffer, baseline, state);
+            snapshotTicks[tick % NetProtocol.HISTORY] = tick;
+            if (NetState.hash(state) != hash) {
+                hashMismatches++;
+            }
+            if (tick > latestTick) {
+                latestTick = tick;
+                newest = tick;
+                this.player = player;
+            }
+        }
+    }
+
+    private boolean applyNewest(int tick) {
+        if (tick < 0) {
+            return false;
+        }
+        NetState.apply(snapshots[tick % NetProtocol.HISTORY], simulation);
+        return true;
+    }
+
+    // the paddle of this client in the local copy of the state, null for spectators
+    Player paddle() {
+        return player == 0 ? simulation.playerOne : player == 1 ? simulation.playerTwo : null;
+    }
+
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
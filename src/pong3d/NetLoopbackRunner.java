@@ -0,0 +1,93 @@
+package pong3d;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+// Runs a NetServer and bot clients over loopback and reports the bandwidth
+// per client and the server's tick cost. The two player bots follow the ball
+// as they see it in their decoded snapshots and serve when the game is
+// paused, the others only watch.
+//
+// usage: java -cp game/target/classes pong3d.NetLoopbackRunner [clients] [seconds] [dropRate]
+class NetLoopbackRunner {
+    // UDP and IPv4 headers, not counted in the payload
+    static final int HEADER_BYTES = 28;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 10.0;
+        float dropRate = args.length > 2 ? Float.parseFloat(args[2]) : 0.0f;
+
+        NetServer server = new NetServer(0);
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", server.port());
+        Thread serverThread = new Thread(server, "net-server");
+        serverThread.start();
+
+        NetClient[] clients = new NetClient[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            clients[i] = new NetClient(address);
+            clients[i].dropRate = dropRate;
+            // connect one by one so the first two get the paddles
+            clients[i].sendInput(0);
+            Thread.sleep(20);
+        }
+
+        long start = System.nanoTime();
+        long end = start + (long) (seconds * 1e9);
+        TickPacer pacer = new TickPacer(Simulation.TICK_NANOS);
+        while (pacer.awaitTick() < end) {
+            for (NetClient client : clients) {
+                client.poll();
+                client.sendInput(buttons(client));
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        server.stop();
+        serverThread.join();
+
+        System.out.printf("%d clients, %.1f s, %d server ticks, %.0f%% of the snapshots dropped at the clients%n",
+                clientCount, elapsed, server.ticks, dropRate * 100);
+        System.out.printf("server tick incl. sending: %.1f us average, %.1f us max, %d sends failed%n",
+                server.tickNanos / 1e3 / server.ticks, server.maxTickNanos / 1e3, server.dropped);
+        System.out.printf("full snapshot: %d bytes%n", NetProtocol.MAX_PACKET_SIZE);
+        System.out.printf("%6s %7s %10s %12s %14s %6s %12s %10s%n", "client", "player", "snapshots",
+                "bytes/snap", "bytes/s (+hdr)", "full", "undecodable", "mismatch");
+        for (int i = 0; i < clientCount; i++) {
+            NetClient client = clients[i];
+            NetServer.Connection connection = find(server, i);
+            long bytes = connection == null ? client.bytesReceived : connection.bytesSent;
+            long packets = connection == null ? client.packetsReceived : connection.packetsSent;
+            System.out.printf("%6d %7s %10d %12.1f %7.0f (%5.0f) %6d %12d %10d%n", i,
+                    client.player < 0 ? "-" : Integer.toString(client.player + 1), client.packetsReceived,
+                    (double) bytes / Math.max(1, packets), bytes / elapsed, (bytes + packets * HEADER_BYTES) / elapsed,
+                    client.fullSnapshots, client.undecodable, client.hashMismatches);
+            client.close();
+        }
+        System.out.printf("Score %d : %d%n", server.simulation.scoreOne.getScore(), server.simulation.scoreTwo.getScore());
+    }
+
+    // server side of the i-th client, the server keeps them in connection order
+    private static NetServer.Connection find(NetServer server, int i) {
+        return i < server.connections.size() ? server.connections.get(i) : null;
+    }
+
+    private static int buttons(NetClient client) {
+        Simulation simulation = client.simulation;
+        Player paddle = client.paddle();
+        if (paddle == null) {
+            return 0;
+        }
+        HeadlessRunner.track(paddle, simulation.ball);
+        int buttons = 0;
+        if (paddle.moveUp) {
+            buttons |= NetProtocol.BUTTON_UP;
+        }
+        if (paddle.moveDown) {
+            buttons |= NetProtocol.BUTTON_DOWN;
+        }
+        if (simulation.pauseGame) {
+            buttons |= NetProtocol.BUTTON_SERVE;
+        }
+        return buttons;
+    }
+}
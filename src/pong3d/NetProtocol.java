@@ -0,0 +1,78 @@
+package pong3d;
+
+import java.nio.ByteBuffer;
+
+// Datagram layouts of the networked mode, all big-endian.
+//
+// input, client to server, sent every client tick:
+//   byte INPUT, int sequence, int ackTick, byte buttons
+// ackTick is the newest snapshot the client decoded, -1 before the first.
+//
+// snapshot, server to client, sent every server tick:
+//   byte SNAPSHOT, int tick, int baselineTick, byte player, int stateHash,
+//   int fieldMask, int value for every bit set in fieldMask
+// The values are the NetState fields that differ from the snapshot of
+// baselineTick, or from all zeros if baselineTick is -1. player is the
+// paddle the client controls (0 or 1), -1 for spectators.
+class NetProtocol {
+    static final byte INPUT = 1;
+    static final byte SNAPSHOT = 2;
+
+    static final int BUTTON_UP = 1;
+    static final int BUTTON_DOWN = 2;
+    static final int BUTTON_SERVE = 4;
+
+    static final int INPUT_SIZE = 10;
+    static final int SNAPSHOT_HEADER_SIZE = 18;
+    static final int MAX_PACKET_SIZE = SNAPSHOT_HEADER_SIZE + NetState.FIELDS * 4;
+
+    // snapshots a client can still use as baseline, about half a second
+    static final int HISTORY = 64;
+
+    // steers the paddle as the buttons say, BUTTON_SERVE starts a paused game
+    static void applyButtons(Simulation simulation, Player player, int buttons) {
+        player.moveUp = (buttons & BUTTON_UP) != 0;
+        player.moveDown = (buttons & BUTTON_DOWN) != 0;
+        if ((buttons & BUTTON_SERVE) != 0 && simulation.pauseGame) {
+            simulation.startGame();
+        }
+    }
+
+    static void writeInput(ByteBuffer buffer, int sequence, int ackTick, int buttons) {
+        buffer.put(INPUT);
+        buffer.putInt(sequence);
+        buffer.putInt(ackTick);
+        buffer.put((byte) buttons);
+    }
+
+    static void writeSnapshot(ByteBuffer buffer, int tick, int baselineTick, int player, int[] state, int[] baseline) {
+        buffer.put(SNAPSHOT);
+        buffer.putInt(tick);
+        buffer.putInt(baselineTick);
+        buffer.put((byte) player);
+        buffer.putInt(NetState.hash(state));
+        int mask = 0;
+        for (int i = 0; i < NetState.FIELDS; i++) {
+            if (state[i] != baseline[i]) {
+                mask |= 1 << i;
+            }
+        }
+        buffer.putInt(mask);
+        for (int i = 0; i < NetState.FIELDS; i++) {
+            if ((mask & 1 << i) != 0) {
+                buffer.putInt(state[i]);
+            }
+        }
+    }
+
+    // reads the fields of a snapshot, positioned after the header, on top of a copy of the baseline
+    static void readSnapshotFields(ByteBuffer buffer, int[] baseline, int[] state) {
+        System.arraycopy(baseline, 0, state, 0, NetState.FIELDS);
+        int mask = buffer.getInt();
+        for (int i = 0; i < NetState.FIELDS; i++) {
+            if ((mask & 1 << i) != 0) {
+                state[i] = buffer.getInt();
+            }
+        }
+    }
+}
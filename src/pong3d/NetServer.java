@@ -0,0 +1,220 @@
+package pong3d;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// Authoritative server of the networked mode. It steps the simulation at
+// Simulation.TICK_RATE on its own thread and talks UDP over one
+// non-blocking DatagramChannel. The first two clients control the paddles,
+// later ones watch. Every tick each client gets a snapshot delta-compressed
+// against the newest snapshot it acknowledged (see NetProtocol).
+//
+// usage: java -cp game/target/classes pong3d.NetServer [port]
+class NetServer implements Runnable {
+    static final int DEFAULT_PORT = 7777;
+    static final int MAX_CLIENTS = 16;
+    // clients that send nothing for this long are dropped
+    static final int TIMEOUT_TICKS = 2 * Simulation.TICK_RATE;
+
+    static class Connection {
+        final SocketAddress address;
+        int player;
+        int lastSequence = -1;
+        int ackTick = -1;
+        int buttons;
+        int lastHeardTick;
+        long bytesSent;
+        long packetsSent;
+
+        Connection(SocketAddress address, int player, int tick) {
+            this.address = address;
+            this.player = player;
+            this.lastHeardTick = tick;
+        }
+    }
+
+    final Simulation simulation = new Simulation();
+    private final DatagramChannel channel;
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(NetProtocol.MAX_PACKET_SIZE);
+    private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(NetProtocol.MAX_PACKET_SIZE);
+    private final HashMap<SocketAddress, Connection> connectionsByAddress = new HashMap<>();
+    final ArrayList<Connection> connections = new ArrayList<>();
+    private final Connection[] players = new Connection[2];
+
+    // the last HISTORY snapshots, baselines for the deltas
+    private final int[][] history = new int[NetProtocol.HISTORY][NetState.FIELDS];
+    private final int[] historyTicks = new int[NetProtocol.HISTORY];
+    private final int[] zeros = new int[NetState.FIELDS];
+    int tick;
+
+    private volatile boolean running;
+
+    // statistics, read after the server thread stopped
+    long ticks;
+    long tickNanos;
+    long maxTickNanos;
+    long dropped;
+
+    public NetServer(int port) throws IOException {
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.bind(new InetSocketAddress(port));
+        Arrays.fill(historyTicks, -1);
+    }
+
+    public int port() throws IOException {
+        return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        running = true;
+        TickPacer pacer = new TickPacer(Simulation.TICK_NANOS);
+        while (running) {
+            pacer.awaitTick();
+            tick();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    void tick() {
+        long start = System.nanoTime();
+        try {
+            receive();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        applyInputs();
+        simulation.update();
+        tick++;
+
+        int[] state = history[tick % NetProtocol.HISTORY];
+        NetState.capture(simulation, state);
+        historyTicks[tick % NetProtocol.HISTORY] = tick;
+        for (int i = connections.size() - 1; i >= 0; i--) {
+            Connection connection = connections.get(i);
+            if (tick - connection.lastHeardTick > TIMEOUT_TICKS) {
+                disconnect(connection);
+                continue;
+            }
+            send(connection, state);
+        }
+
+        long nanos = System.nanoTime() - start;
+        ticks++;
+        tickNanos += nanos;
+        maxTickNanos = Math.max(maxTickNanos, nanos);
+    }
+
+    private void receive() throws IOException {
+        while (true) {
+            receiveBuffer.clear();
+            SocketAddress address = channel.receive(receiveBuffer);
+            if (address == null) {
+                return;
+            }
+            receiveBuffer.flip();
+            if (receiveBuffer.remaining() < NetProtocol.INPUT_SIZE || receiveBuffer.get() != NetProtocol.INPUT) {
+                continue;
+            }
+            Connection connection = connectionsByAddress.get(address);
+            if (connection == null) {
+                connection = connect(address);
+                if (connection == null) {
+                    continue;
+                }
+            }
+            int sequence = receiveBuffer.getInt();
+            int ackTick = receiveBuffer.getInt();
+            int buttons = receiveBuffer.get();
+            connection.lastHeardTick = tick;
+            // datagrams can arrive out of order, only newer input counts
+            if (sequence > connection.lastSequence) {
+                connection.lastSequence = sequence;
+                connection.buttons = buttons;
+            }
+            if (ackTick > connection.ackTick && ackTick <= tick) {
+                connection.ackTick = ackTick;
+            }
+        }
+    }
+
+    private Connection connect(SocketAddress address) {
+        if (connections.size() == MAX_CLIENTS) {
+            return null;
+        }
+        int player = players[0] == null ? 0 : players[1] == null ? 1 : -1;
+        Connection connection = new Connection(address, player, tick);
+        if (player >= 0) {
+            players[player] = connection;
+        }
+        connections.add(connection);
+        connectionsByAddress.put(address, connection);
+        System.out.println("Client " + address + (player >= 0 ? " controls player " + (player + 1) : " watches"));
+        return connection;
+    }
+
+    private void disconnect(Connection connection) {
+        connections.remove(connection);
+        connectionsByAddress.remove(connection.address);
+        if (connection.player >= 0) {
+            players[connection.player] = null;
+        }
+        System.out.println("Client " + connection.address + " timed out");
+    }
+
+    private void applyInputs() {
+        NetProtocol.applyButtons(simulation, simulation.playerOne, players[0] == null ? 0 : players[0].buttons);
+        NetProtocol.applyButtons(simulation, simulation.playerTwo, players[1] == null ? 0 : players[1].buttons);
+    }
+
+    private void send(Connection connection, int[] state) {
+        int baselineTick = connection.ackTick;
+        int[] baseline;
+        if (baselineTick >= 0 && tick - baselineTick < NetProtocol.HISTORY
+                && historyTicks[baselineTick % NetProtocol.HISTORY] == baselineTick) {
+            baseline = history[baselineTick % NetProtocol.HISTORY];
+        } else {
+            baselineTick = -1;
+            baseline = zeros;
+        }
+        sendBuffer.clear();
+        NetProtocol.writeSnapshot(sendBuffer, tick, baselineTick, connection.player, state, baseline);
+        sendBuffer.flip();
+        int bytes = sendBuffer.remaining();
+        try {
+            if (channel.send(sendBuffer, connection.address) == 0) {
+                // socket buffer full, the next snapshot replaces this one anyway
+                dropped++;
+                return;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        connection.bytesSent += bytes;
+        connection.packetsSent++;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        NetServer server = new NetServer(port);
+        Thread thread = new Thread(server, "net-server");
+        thread.start();
+        System.out.println("Serving on UDP port " + server.port());
+    }
+}
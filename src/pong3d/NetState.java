@@ -0,0 +1,99 @@
+package pong3d;
+
+// The part of the simulation state a networked client needs to draw the
+// game, as a fixed list of 32 bit fields. Floats are stored as their raw
+// bits, so equal states have equal fields and unchanged fields can be
+// left out of a delta.
+class NetState {
+    static final int BALL_X = 0;
+    static final int BALL_Y = 1;
+    static final int BALL_VELOCITY_X = 2;
+    static final int BALL_VELOCITY_Y = 3;
+    static final int BALL_ANGLE_Z = 4;
+    static final int BALL_ROTATION_Z = 5;
+    static final int PLAYER_ONE_Y = 6;
+    static final int PLAYER_ONE_VELOCITY = 7;
+    static final int PLAYER_ONE_SCALE_Y = 8;
+    static final int PLAYER_TWO_Y = 9;
+    static final int PLAYER_TWO_VELOCITY = 10;
+    static final int PLAYER_TWO_SCALE_Y = 11;
+    static final int POWER_UP_X = 12;
+    static final int POWER_UP_Y = 13;
+    // spawned in bit 0, type above
+    static final int POWER_UP_FLAGS = 14;
+    // player one's score in the low byte, player two's in the next
+    static final int SCORES = 15;
+    static final int PAUSED = 16;
+    static final int COURT_ANGLE_Y = 17;
+    static final int FIELDS = 18;
+
+    static void capture(Simulation simulation, int[] state) {
+        Ball ball = simulation.ball;
+        state[BALL_X] = Float.floatToRawIntBits(ball.posX());
+        state[BALL_Y] = Float.floatToRawIntBits(ball.posY());
+        state[BALL_VELOCITY_X] = Float.floatToRawIntBits(ball.velocityX());
+        state[BALL_VELOCITY_Y] = Float.floatToRawIntBits(ball.velocityY());
+        state[BALL_ANGLE_Z] = Float.floatToRawIntBits(ball.angleZ());
+        state[BALL_ROTATION_Z] = Float.floatToRawIntBits(ball.rotationZ());
+        state[PLAYER_ONE_Y] = Float.floatToRawIntBits(simulation.playerOne.posY());
+        state[PLAYER_ONE_VELOCITY] = Float.floatToRawIntBits(simulation.playerOne.velocityY());
+        state[PLAYER_ONE_SCALE_Y] = Float.floatToRawIntBits(simulation.playerOne.scaleY());
+        state[PLAYER_TWO_Y] = Float.floatToRawIntBits(simulation.playerTwo.posY());
+        state[PLAYER_TWO_VELOCITY] = Float.floatToRawIntBits(simulation.playerTwo.velocityY());
+        state[PLAYER_TWO_SCALE_Y] = Float.floatToRawIntBits(simulation.playerTwo.scaleY());
+        state[POWER_UP_X] = Float.floatToRawIntBits(simulation.powerUp.posX());
+        state[POWER_UP_Y] = Float.floatToRawIntBits(simulation.powerUp.posY());
+        state[POWER_UP_FLAGS] = (simulation.powerUp.spawned() ? 1 : 0) | simulation.powerUp.type << 1;
+        state[SCORES] = simulation.scoreOne.getScore() | simulation.scoreTwo.getScore() << 8;
+        state[PAUSED] = simulation.pauseGame ? 1 : 0;
+        state[COURT_ANGLE_Y] = Float.floatToRawIntBits(simulation.court.angleY());
+    }
+
+    // writes the state into a simulation that is only drawn, not stepped;
+    // the previous state is kept so rendering can interpolate
+    static void apply(int[] state, Simulation simulation) {
+        simulation.entities.storePreviousState();
+        Ball ball = simulation.ball;
+        ball.setPosX(Float.intBitsToFloat(state[BALL_X]));
+        ball.setPosY(Float.intBitsToFloat(state[BALL_Y]));
+        ball.setVelocityX(Float.intBitsToFloat(state[BALL_VELOCITY_X]));
+        ball.setVelocityY(Float.intBitsToFloat(state[BALL_VELOCITY_Y]));
+        ball.setAngleZ(Float.intBitsToFloat(state[BALL_ANGLE_Z]));
+        ball.setRotationZ(Float.intBitsToFloat(state[BALL_ROTATION_Z]));
+        ball.updateBorders();
+        applyPlayer(simulation.playerOne, state[PLAYER_ONE_Y], state[PLAYER_ONE_VELOCITY], state[PLAYER_ONE_SCALE_Y]);
+        applyPlayer(simulation.playerTwo, state[PLAYER_TWO_Y], state[PLAYER_TWO_VELOCITY], state[PLAYER_TWO_SCALE_Y]);
+
+        PowerUp powerUp = simulation.powerUp;
+        boolean spawned = (state[POWER_UP_FLAGS] & 1) != 0;
+        if (spawned && !powerUp.spawned()) {
+            // appears where it is instead of sliding in from the last spawn
+            powerUp.setPosY(Float.intBitsToFloat(state[POWER_UP_Y]));
+            powerUp.storePreviousState();
+        }
+        powerUp.setSpawned(spawned);
+        powerUp.setType(state[POWER_UP_FLAGS] >>> 1);
+        powerUp.setPosX(Float.intBitsToFloat(state[POWER_UP_X]));
+        powerUp.setPosY(Float.intBitsToFloat(state[POWER_UP_Y]));
+
+        simulation.scoreOne.setScore(state[SCORES] & 0xff);
+        simulation.scoreTwo.setScore(state[SCORES] >>> 8 & 0xff);
+        simulation.pauseGame = state[PAUSED] != 0;
+        simulation.court.setAngleY(Float.intBitsToFloat(state[COURT_ANGLE_Y]));
+    }
+
+    private static void applyPlayer(Player player, int posY, int velocity, int scaleY) {
+        player.setPosY(Float.intBitsToFloat(posY));
+        player.setVelocityY(Float.intBitsToFloat(velocity));
+        player.setScaleY(Float.intBitsToFloat(scaleY));
+    }
+
+    // detects a client whose decoded state differs from the server's
+    static int hash(int[] state) {
+        int hash = 1;
+        for (int field : state) {
+            hash = 31 * hash + field;
+        }
+        return hash;
+    }
+}
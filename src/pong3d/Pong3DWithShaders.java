@@ -0,0 +1,1152 @@
+package pong3d;
+
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.*;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import javax.imageio.ImageIO;
+import javax.swing.*;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.*;
+
+import com.jogamp.opengl.awt.GLCanvas;
+import com.jogamp.math.Matrix4f;
+import com.jogamp.opengl.util.Animator;
+
+public class Pong3DWithShaders {
+    public static void main(String[] args) {
+        System.setProperty("sun.java2d.uiScale", "1.0");
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                MyGui myGUI = new MyGui();
+                myGUI.createGUI();
+            }
+        });
+    }
+}
+
+class MyGui extends JFrame implements GLEventListener {
+    // print heap allocation and GL calls per frame, e.g. -Dpong.frameReport=600 every 600 frames
+    private static final int FRAME_REPORT_FRAMES = Integer.getInteger("pong.frameReport", 0);
+    // render vsynced by default, -Dpong.vsync=false renders as fast as possible
+    private static final boolean VSYNC = Boolean.parseBoolean(System.getProperty("pong.vsync", "true"));
+    // longest frame the simulation catches up on, longer stalls are dropped
+    private static final long MAX_FRAME_NANOS = 250_000_000L;
+
+    private Game game;
+    private final AllocationCounter allocationCounter = new AllocationCounter();
+
+    // fixed timestep: simulation time not yet consumed by ticks
+    private long lastFrameTime;
+    private long accumulator;
+
+    public void createGUI() {
+        setTitle("PongShadow");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        GLProfile glp = GLProfile.getDefault();
+
+        // Some new Macs or laptops with ARM CPUs do not support OpenGL 3,
+        // so we have to use OpenGL 4 instead:
+        // GLProfile glp = GLProfile.get(GLProfile.GL4);
+
+        GLCapabilities caps = new GLCapabilities(glp);
+        GLCanvas canvas = new GLCanvas(caps);
+        // the animator is not capped, the simulation runs at its own fixed tick rate
+        final Animator ani = new Animator(canvas);
+        canvas.addGLEventListener(this);
+        game = new Game();
+        canvas.addKeyListener(game);
+        ani.start();
+
+        getContentPane().setPreferredSize(new Dimension(800, 450));
+        getContentPane().add(canvas);
+        pack();
+        setVisible(true);
+        canvas.requestFocus();
+    }
+
+    @Override
+    public void init(GLAutoDrawable d) {
+        GL3 gl = d.getGL().getGL3(); // get the OpenGL 2 graphics context
+        // enable depth test
+        gl.glEnable(GL3.GL_DEPTH_TEST);
+        gl.setSwapInterval(VSYNC ? 1 : 0);
+
+        // setup camera
+        float aspect = 16.0f / 9.0f;
+        // this function replaces gluPerspective
+        game.projection.setToPerspective((float) Math.toRadians(60.0f), aspect, 1.5f, 5.5f);
+        game.init(d);
+    }
+
+    @Override
+    public void reshape(GLAutoDrawable d, int x, int y, int width, int height) {
+        GL3 gl = d.getGL().getGL3(); // get the OpenGL 2 graphics context
+        float windowAspect = (float) width / (float) height;
+        float targetAspect = 16.0f / 9.0f;
+        if (windowAspect >= targetAspect) {
+            int correctedWidth = Math.round(height * targetAspect);
+            int offsetX = Math.round((width - correctedWidth) / 2.0f);
+            gl.glViewport(offsetX, 0, correctedWidth, height);
+        } else {
+            int correctedHeight = Math.round(width / targetAspect);
+            int offsetY = Math.round((height - correctedHeight) / 2.0f);
+            gl.glViewport(0, offsetY, width, correctedHeight);
+        }
+    }
+
+    @Override
+    public void display(GLAutoDrawable d) {
+        allocationCounter.beginFrame();
+
+        // run as many simulation ticks as real time has passed
+        long now = System.nanoTime();
+        if (lastFrameTime == 0) {
+            lastFrameTime = now;
+        }
+        accumulator += Math.min(now - lastFrameTime, MAX_FRAME_NANOS);
+        lastFrameTime = now;
+        while (accumulator >= Simulation.TICK_NANOS) {
+            game.update();
+            accumulator -= Simulation.TICK_NANOS;
+        }
+
+        // render between the last two ticks by the fraction of a tick left over
+        game.display(d, (float) accumulator / Simulation.TICK_NANOS);
+        game.input.frameShown();
+        allocationCounter.endFrame();
+
+        if (FRAME_REPORT_FRAMES > 0 && allocationCounter.frames() == FRAME_REPORT_FRAMES) {
+            System.out.printf("Allocated %.1f bytes per frame (max %d), %.1f GL calls per frame%n",
+                    allocationCounter.averageBytesPerFrame(), allocationCounter.maxBytesPerFrame(),
+                    (double) game.glState.calls() / FRAME_REPORT_FRAMES);
+            System.out.println("Input latency: " + game.input.summary());
+            game.input.toTick.reset();
+            game.input.toFrame.reset();
+            allocationCounter.reset();
+            game.glState.resetCalls();
+        }
+    }
+
+    @Override
+    public void dispose(GLAutoDrawable d) {
+    }
+}
+
+class Game extends KeyAdapter {
+    static final int UPLOADS_PER_FRAME = 2;
+    // play on a NetServer instead of locally, e.g. -Dpong.connect=localhost:7777
+    private static final String CONNECT = System.getProperty("pong.connect");
+    // record the match into a replay file, or play one back, e.g. -Dpong.record=match.replay
+    private static final String RECORD = System.getProperty("pong.record");
+    private static final String REPLAY = System.getProperty("pong.replay");
+    // the computer plays player two, e.g. -Dpong.bot=normal (easy, normal, hard, perfect)
+    private static final String BOT = System.getProperty("pong.bot");
+
+    Simulation simulation = new Simulation();
+    // set when connected, the simulation then only mirrors the server's snapshots
+    NetClient netClient;
+    ReplayRecorder recorder;
+    ReplayPlayer replayPlayer;
+    PredictingBot bot;
+    // key events from the AWT event thread, polled once per tick
+    final InputQueue input = new InputQueue();
+    AssetLoader assetLoader = new AssetLoader();
+    GlState glState = new GlState();
+    UniformBlocks uniformBlocks = new UniformBlocks();
+    // startup timing, the assets finish loading after the first frame
+    long loadStartNanos;
+    boolean firstFrameShown;
+    Matrix4f projection = new Matrix4f();
+
+    // scratch objects reused every frame so rendering does not allocate
+    private final Matrix4f modelview = new Matrix4f();
+    private final Matrix4f normalMat = new Matrix4f();
+    private final Matrix4f tmpMatrix = new Matrix4f();
+    private final int[] uniformOffsets = new int[UniformBlocks.MAX_OBJECTS];
+    private final float[] matrixData = new float[16];
+
+    // what the number keys change; the AWT thread publishes a new one and
+    // the frame reads it once, so it never sees half of a change
+    static final class ViewSettings {
+        final float lightX, lightY, lightZ;
+        final boolean followBall;
+        final float metallic;
+        final float roughness;
+        final int shading;
+
+        ViewSettings(float lightX, float lightY, float lightZ, boolean followBall, float metallic, float roughness,
+                int shading) {
+            this.lightX = lightX;
+            this.lightY = lightY;
+            this.lightZ = lightZ;
+            this.followBall = followBall;
+            this.metallic = metallic;
+            this.roughness = roughness;
+            this.shading = shading;
+        }
+
+        ViewSettings withLight(float x, float y, float z) {
+            return new ViewSettings(x, y, z, false, metallic, roughness, shading);
+        }
+
+        ViewSettings withFollowBall() {
+            return new ViewSettings(lightX, lightY, lightZ, true, metallic, roughness, shading);
+        }
+
+        ViewSettings withMetallic(float metallic) {
+            return new ViewSettings(lightX, lightY, lightZ, followBall, metallic, roughness, shading);
+        }
+
+        ViewSettings withRoughness(float roughness) {
+            return new ViewSettings(lightX, lightY, lightZ, followBall, metallic, roughness, shading);
+        }
+
+        ViewSettings withShading(int shading) {
+            return new ViewSettings(lightX, lightY, lightZ, followBall, metallic, roughness, shading);
+        }
+    }
+
+    volatile ViewSettings view = new ViewSettings(0, 0, -1, false, 0.0f, 0.1f, 0);
+    // GL thread only, the light of the frame being drawn
+    private final float[] lightDirection = {0, 0, -1};
+
+    // what is drawn for each simulated object, in draw order
+    Renderable court;
+    Renderable ball;
+    Renderable playerOne;
+    Renderable playerTwo;
+    Renderable scoreOne;
+    Renderable scoreTwo;
+    Renderable powerUp;
+    Renderable[] renderables;
+
+    Mesh[] digitMeshes;
+    int[] powerUpTexIDs = new int[3];
+
+    Shader shader;
+
+    public Game() {
+        if (CONNECT != null) {
+            try {
+                netClient = NetClient.connect(CONNECT);
+                simulation = netClient.simulation;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } else if (REPLAY != null) {
+            try {
+                replayPlayer = new ReplayPlayer(Path.of(REPLAY));
+                simulation = replayPlayer.simulation;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        if (BOT != null && netClient == null && replayPlayer == null) {
+            // a stream of its own, on simulation.seed it would draw the same numbers as the serves
+            long botSeed = new SimulationRandom(simulation.seed).split().nextLong();
+            bot = new PredictingBot(simulation, simulation.playerTwo, PredictingBot.Level.named(BOT), botSeed);
+        }
+        if (RECORD != null && netClient == null && replayPlayer == null) {
+            try {
+                recorder = new ReplayRecorder(Path.of(RECORD), simulation);
+                Runtime.getRuntime().addShutdownHook(new Thread(this::closeRecorder));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        court = new Renderable(simulation.court, false);
+        ball = new Renderable(simulation.ball, true);
+        playerOne = new Renderable(simulation.playerOne, true);
+        playerTwo = new Renderable(simulation.playerTwo, true);
+        scoreOne = new Renderable(simulation.scoreOne, true);
+        scoreTwo = new Renderable(simulation.scoreTwo, true);
+        powerUp = new Renderable(simulation.powerUp, true);
+        renderables = new Renderable[]{court, ball, playerOne, playerTwo, scoreOne, scoreTwo, powerUp};
+
+        shader = new Shader();
+    }
+
+    public void init(GLAutoDrawable d) {
+        loadStartNanos = System.nanoTime();
+
+        // load shaders
+        shader.setupShaders(d);
+        uniformBlocks.init(d.getGL().getGL3());
+
+        // decode meshes and textures on worker threads, display() uploads them
+        assetLoader.loadMesh("src/ball.vbo").thenAccept(mesh -> ball.mesh = mesh);
+        assetLoader.loadMesh("src/player.vbo").thenAccept(mesh -> {
+            playerOne.mesh = mesh;
+            playerTwo.mesh = mesh;
+        });
+        assetLoader.loadMesh("src/court.vbo").thenAccept(mesh -> court.mesh = mesh);
+
+        ArrayList<CompletableFuture<Mesh>> digits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            digits.add(assetLoader.loadMesh("src/" + i + ".vbo"));
+        }
+        CompletableFuture<Void> scoresLoaded = CompletableFuture.allOf(digits.toArray(new CompletableFuture<?>[0]))
+                .thenRun(() -> {
+                    Mesh[] meshes = new Mesh[digits.size()];
+                    for (int i = 0; i < digits.size(); i++) {
+                        meshes[i] = digits.get(i).join();
+                    }
+                    digitMeshes = meshes;
+                });
+
+        // setup textures
+        CompletableFuture<Integer> courtTexture = assetLoader.loadTexture("src/interstellar.png")
+                .thenApply(texId -> court.texID = texId);
+        CompletableFuture<Integer> whiteTexture = assetLoader.loadTexture("src/white.png")
+                .thenApply(texId -> {
+                    ball.texID = texId;
+                    playerOne.texID = texId;
+                    playerTwo.texID = texId;
+                    scoreOne.texID = texId;
+                    scoreTwo.texID = texId;
+                    return texId;
+                });
+
+        CompletableFuture<Void> powerUpLoaded = CompletableFuture.allOf(
+                assetLoader.loadMesh("src/box_tri.vbo").thenAccept(mesh -> powerUp.mesh = mesh),
+                assetLoader.loadTexture("src/powerup_icons_grow.png").thenAccept(texId -> powerUpTexIDs[0] = texId),
+                assetLoader.loadTexture("src/powerup_icons_shrink.png").thenAccept(texId -> powerUpTexIDs[1] = texId),
+                assetLoader.loadTexture("src/powerup_icons_star.png").thenAccept(texId -> powerUpTexIDs[2] = texId)
+        );
+
+        // the loader logs what failed, the rest is drawn without it
+        CompletableFuture<Void> loaded = CompletableFuture.allOf(scoresLoaded, courtTexture, whiteTexture, powerUpLoaded);
+        loaded.whenComplete((ignored, failure) -> {
+            System.out.printf("Loaded assets%s in %.1f ms%n", failure == null ? "" : " with failures",
+                    (System.nanoTime() - loadStartNanos) / 1e6);
+            assetLoader.shutdown();
+        });
+    }
+
+    // alpha interpolates between the previous (0) and the current (1) simulation state
+    public void display(GLAutoDrawable d, float alpha) {
+        GL3 gl = d.getGL().getGL3(); // get the OpenGL 2 graphics context
+
+        glState.setGL(gl);
+
+        // create the GL objects for assets decoded since the last frame
+        if (assetLoader.drainUploads(gl, UPLOADS_PER_FRAME) > 0) {
+            glState.invalidate();
+        }
+        if (!firstFrameShown) {
+            System.out.printf("First frame after %.1f ms%n", (System.nanoTime() - loadStartNanos) / 1e6);
+            firstFrameShown = true;
+        }
+
+        syncRenderables();
+
+        // clear the screen
+        glState.clear(0.0f, 0.0f, 0.0f, 0.0f, GL.GL_COLOR_BUFFER_BIT | GL.GL_DEPTH_BUFFER_BIT);
+
+        // collect the Frame block and the Object blocks of all objects, then upload them in one write
+        ViewSettings view = this.view;
+        if (view.followBall) {
+            lightDirection[0] = simulation.ball.posX();
+            lightDirection[1] = simulation.ball.posX();
+            lightDirection[2] = -2;
+        } else {
+            lightDirection[0] = view.lightX;
+            lightDirection[1] = view.lightY;
+            lightDirection[2] = view.lightZ;
+        }
+        uniformBlocks.setFrame(projection, lightDirection, view.metallic, view.roughness);
+        for (int i = 0; i < renderables.length; i++) {
+            Renderable renderable = renderables[i];
+            uniformOffsets[i] = renderable.isDrawn() ? addObjectUniforms(renderable.object, alpha) : -1;
+        }
+        uniformBlocks.upload(glState);
+
+        // every shading mode has its own program
+        glState.useProgram(shader.progIDs[view.shading]);
+
+        for (int i = 0; i < renderables.length; i++) {
+            renderEntity(renderables[i], uniformOffsets[i]);
+        }
+
+        // shadows are the objects squashed onto the court, collected per mesh and drawn instanced
+        glState.useProgram(shader.shadowProgID);
+        for (Renderable renderable : renderables) {
+            if (renderable.castsShadow && renderable.isDrawn()) {
+                addShadowInstance(renderable, alpha);
+            }
+        }
+        for (Renderable renderable : renderables) {
+            if (renderable.isDrawn() && renderable.mesh.shadowInstances > 0) {
+                renderShadows(renderable.mesh);
+            }
+        }
+    }
+
+    // picks the mesh, texture and visibility that match the current simulation state
+    private void syncRenderables() {
+        if (digitMeshes != null) {
+            scoreOne.mesh = digitMeshes[Math.min(simulation.scoreOne.getScore(), digitMeshes.length - 1)];
+            scoreTwo.mesh = digitMeshes[Math.min(simulation.scoreTwo.getScore(), digitMeshes.length - 1)];
+        }
+        powerUp.texID = powerUpTexIDs[simulation.powerUp.type];
+        powerUp.visible = simulation.powerUp.spawned();
+    }
+
+    private void addShadowInstance(Renderable renderable, float alpha) {
+        Entity entity = renderable.object;
+        Mesh mesh = renderable.mesh;
+        if (mesh.shadowInstances == Mesh.MAX_SHADOW_INSTANCES) {
+            renderShadows(mesh);
+        }
+
+        setModelview(modelview, entity, alpha, -2.25f, 0.0f, tmpMatrix);
+        mesh.instanceData.put(modelview.get(matrixData));
+        mesh.shadowInstances++;
+    }
+
+    private void renderShadows(Mesh mesh) {
+        mesh.instanceData.flip();
+        glState.bufferSubData(mesh.instanceBufID, mesh.instanceData);
+        glState.bindVertexArray(mesh.shadowVaoID);
+        glState.drawArraysInstanced(GL3.GL_TRIANGLES, 0, mesh.vertNo, mesh.shadowInstances);
+        mesh.instanceData.clear();
+        mesh.shadowInstances = 0;
+    }
+
+    // returns the offset of the object's uniform block
+    private int addObjectUniforms(Entity entity, float alpha) {
+        setModelview(modelview, entity, alpha, -2.0f, entity.sizeZ(), tmpMatrix);
+        setNormalMatrix(normalMat, modelview);
+        return uniformBlocks.addObject(modelview, normalMat);
+    }
+
+    // places the object at depth z, sizeZ 0 squashes it flat for the shadow pass
+    static void setModelview(Matrix4f modelview, Entity entity, float alpha, float z, float sizeZ,
+                             Matrix4f tmpMatrix) {
+        modelview.loadIdentity();
+        modelview.translate(entity.renderPosX(alpha), entity.renderPosY(alpha), z, tmpMatrix);
+        modelview.scale(entity.sizeX(), entity.sizeY(), sizeZ, tmpMatrix);
+
+        modelview.rotate((float) Math.toRadians(entity.angleX()), 1, 0, 0, tmpMatrix);
+        modelview.rotate((float) Math.toRadians(entity.renderAngleY(alpha)), 0, 1, 0, tmpMatrix);
+        modelview.rotate((float) Math.toRadians(entity.renderAngleZ(alpha)), 0, 0, 1, tmpMatrix);
+    }
+
+    // rotational part of the transformation
+    static void setNormalMatrix(Matrix4f normalMat, Matrix4f modelview) {
+        normalMat.load(modelview);
+        normalMat.transpose();
+        normalMat.invert();
+    }
+
+    private void renderEntity(Renderable renderable, int uniformOffset) {
+        // mesh not uploaded yet
+        if (uniformOffset < 0) {
+            return;
+        }
+
+        // select the object's uniform block
+        uniformBlocks.bindObject(glState, uniformOffset);
+
+        // bind texture to texture unit 0
+        glState.bindTexture(0, renderable.texID);
+
+        // activate the VAO, it holds the VBO and the vertex attribute layout
+        glState.bindVertexArray(renderable.mesh.vaoID);
+
+        // render data
+        glState.drawArrays(GL3.GL_TRIANGLES, 0, renderable.mesh.vertNo);
+    }
+
+    public void update() {
+        int keys = input.poll();
+        if (netClient != null) {
+            sendInput(keys);
+            netClient.poll();
+        } else if (replayPlayer != null) {
+            replayPlayer.step();
+        } else {
+            ReplayFormat.apply(simulation, keys & ~ReplayFormat.INPUT_SERVE);
+            if (bot != null) {
+                bot.update();
+            }
+            // read back once per tick, so a recording holds exactly what was simulated
+            int inputs = ReplayFormat.inputs(simulation, (keys & ReplayFormat.INPUT_SERVE) != 0);
+            if (recorder != null) {
+                recorder.record(inputs);
+            }
+            ReplayFormat.apply(simulation, inputs);
+            simulation.update();
+        }
+    }
+
+    private void closeRecorder() {
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // the keys of both paddles steer the one the server gave us
+    private void sendInput(int keys) {
+        int buttons = 0;
+        if ((keys & (ReplayFormat.INPUT_ONE_UP | ReplayFormat.INPUT_TWO_UP)) != 0) {
+            buttons |= NetProtocol.BUTTON_UP;
+        }
+        if ((keys & (ReplayFormat.INPUT_ONE_DOWN | ReplayFormat.INPUT_TWO_DOWN)) != 0) {
+            buttons |= NetProtocol.BUTTON_DOWN;
+        }
+        if ((keys & ReplayFormat.INPUT_SERVE) != 0) {
+            buttons |= NetProtocol.BUTTON_SERVE;
+        }
+        netClient.sendInput(buttons);
+    }
+
+    public void keyPressed(KeyEvent e) {
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_W:
+                input.press(ReplayFormat.INPUT_ONE_UP);
+                break;
+            case KeyEvent.VK_S:
+                input.press(ReplayFormat.INPUT_ONE_DOWN);
+                break;
+            case KeyEvent.VK_P:
+                input.press(ReplayFormat.INPUT_TWO_UP);
+                break;
+            case KeyEvent.VK_L:
+                input.press(ReplayFormat.INPUT_TWO_DOWN);
+                break;
+            case KeyEvent.VK_SPACE:
+                input.press(ReplayFormat.INPUT_SERVE);
+                break;
+            case KeyEvent.VK_0:
+                view = view.withLight(0, 0, -1);
+                break;
+            case KeyEvent.VK_1:
+                view = view.withLight(0, -1, 0);
+                break;
+            case KeyEvent.VK_2:
+                view = view.withLight(0, 1, 0);
+                break;
+            case KeyEvent.VK_3:
+                view = view.withLight(-1, -1, 0);
+                break;
+            case KeyEvent.VK_4:
+                view = view.withFollowBall();
+                break;
+            case KeyEvent.VK_5:
+                view = view.withMetallic(0.0f);
+                break;
+            case KeyEvent.VK_6:
+                view = view.withMetallic(1.0f);
+                break;
+            case KeyEvent.VK_7:
+                view = view.withRoughness(0.1f);
+                break;
+            case KeyEvent.VK_8:
+                view = view.withRoughness(0.2f);
+                break;
+            case KeyEvent.VK_9:
+                int shading = view.shading + 1;
+                if (shading >= Shader.SHADING_MODES) {
+                    shading = 0;
+                }
+                view = view.withShading(shading);
+
+                switch (shading) {
+                    case 0:
+                        System.out.println("Using: PBR (Default) Shader");
+                        break;
+                    case 1:
+                        System.out.println("Using: Toon Shader");
+                        break;
+                    case 2:
+                        System.out.println("Using: Noise Shader");
+                        break;
+                }
+        }
+    }
+
+    public void keyReleased(KeyEvent e) {
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_W:
+                input.release(ReplayFormat.INPUT_ONE_UP);
+                break;
+            case KeyEvent.VK_S:
+                input.release(ReplayFormat.INPUT_ONE_DOWN);
+                break;
+            case KeyEvent.VK_P:
+                input.release(ReplayFormat.INPUT_TWO_UP);
+                break;
+            case KeyEvent.VK_L:
+                input.release(ReplayFormat.INPUT_TWO_DOWN);
+                break;
+            case KeyEvent.VK_SPACE:
+                input.release(ReplayFormat.INPUT_SERVE);
+                break;
+        }
+    }
+}
+
+class TextureLoader {
+    // decoded pixels, vertically flipped and ready for glTexImage2D
+    static class TextureData {
+        int width;
+        int height;
+        ByteBuffer buffer;
+    }
+
+    // returns the decoded image on success, otherwise null; safe to call from any thread
+    static TextureData decodeTexture(String filename) {
+        try {
+            // open file
+            FileInputStream fileInputStream = new FileInputStream(filename);
+            // read image
+            BufferedImage bufferedImage = ImageIO.read(fileInputStream);
+            fileInputStream.close();
+
+            TextureData data = new TextureData();
+            int width = data.width = bufferedImage.getWidth();
+            int height = data.height = bufferedImage.getHeight();
+            int[] pixelIntData = new int[width * height];
+            // convert image to ByteBuffer
+            bufferedImage.getRGB(0, 0, width, height, pixelIntData, 0, width);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(pixelIntData.length * 4);
+            buffer.order(ByteOrder.nativeOrder());
+            unpackPixels(pixelIntData, width, height, buffer);
+            data.buffer = buffer;
+            return data;
+        } catch (FileNotFoundException e) {
+            System.out.println("Can not find texture data file " + filename);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    // Unpack the data, each integer into 4 bytes of the ByteBuffer.
+    // Also we need to vertically flip the image because the image origin
+    // in OpenGL is the lower-left corner.
+    static void unpackPixels(int[] pixelIntData, int width, int height, ByteBuffer buffer) {
+        for (int y = 0; y < height; y++) {
+            int k = (height - 1 - y) * width;
+            for (int x = 0; x < width; x++) {
+                buffer.put((byte) (pixelIntData[k] >>> 16));
+                buffer.put((byte) (pixelIntData[k] >>> 8));
+                buffer.put((byte) (pixelIntData[k]));
+                buffer.put((byte) (pixelIntData[k] >>> 24));
+                k++;
+            }
+        }
+        buffer.rewind();
+    }
+
+    // returns a valid textureID on success, otherwise -1
+    static int uploadTexture(GL3 gl, TextureData data) {
+        int level = 0;
+        int border = 0;
+
+        if (data == null) {
+            return -1;
+        }
+
+        // data is aligned in byte order
+        gl.glPixelStorei(GL3.GL_UNPACK_ALIGNMENT, 1);
+
+        // request textureID
+        final int[] textureID = new int[1];
+        gl.glGenTextures(1, textureID, 0);
+
+        // bind texture
+        gl.glBindTexture(GL3.GL_TEXTURE_2D, textureID[0]);
+
+        // define how to filter the texture
+        gl.glTexParameteri(GL3.GL_TEXTURE_2D, GL3.GL_TEXTURE_MAG_FILTER, GL3.GL_LINEAR);
+        gl.glTexParameteri(GL3.GL_TEXTURE_2D, GL3.GL_TEXTURE_MIN_FILTER, GL3.GL_LINEAR);
+
+
+        // specify the 2D texture map
+        gl.glTexImage2D(GL3.GL_TEXTURE_2D, level, GL3.GL_RGB, data.width, data.height, border, GL3.GL_RGBA,
+                GL3.GL_UNSIGNED_BYTE, data.buffer);
+
+        return textureID[0];
+    }
+}
+
+class Mesh {
+    static final int MAX_SHADOW_INSTANCES = 64;
+
+    int vertBufID;
+    int vaoID;
+    int vertNo;
+
+    // shadow pass: the mesh positions plus one modelview matrix per instance
+    int shadowVaoID;
+    int instanceBufID;
+    FloatBuffer instanceData;
+    int shadowInstances;
+}
+
+// the GL resources used to draw one simulated object
+class Renderable {
+    final Entity object;
+    final boolean castsShadow;
+    Mesh mesh;
+    int texID;
+    boolean visible = true;
+
+    public Renderable(Entity object, boolean castsShadow) {
+        this.object = object;
+        this.castsShadow = castsShadow;
+    }
+
+    // assets are loaded asynchronously, the mesh is null until it is uploaded
+    public boolean isDrawn() {
+        return visible && mesh != null;
+    }
+}
+
+class VboLoader {
+    static Mesh uploadVBO(GL3 gl, MeshFile meshFile) {
+        // generate VBO
+        Mesh mesh = new Mesh();
+        int[] vboID = new int[1];
+        gl.glGenBuffers(1, vboID, 0);
+        mesh.vertBufID = vboID[0];
+        mesh.vertNo = meshFile.vertexCount;
+
+        // generate VAO, it records the buffer and attribute layout set up below
+        int[] vaoID = new int[1];
+        gl.glGenVertexArrays(1, vaoID, 0);
+        mesh.vaoID = vaoID[0];
+        gl.glBindVertexArray(mesh.vaoID);
+
+        // bind buffers, the mapped file is handed to the driver without an intermediate copy
+        gl.glBindBuffer(GL3.GL_ARRAY_BUFFER, mesh.vertBufID);
+        gl.glBufferData(GL3.GL_ARRAY_BUFFER, meshFile.vertexData.remaining(), meshFile.vertexData, GL3.GL_STATIC_DRAW);
+
+        int stride = (3 + 4 + 2 + 3) * Buffers.SIZEOF_FLOAT;
+        int offset = 0;
+
+        // position
+        gl.glVertexAttribPointer(Shader.VERTEX_LOC, 3, GL3.GL_FLOAT, false, stride, offset);
+        gl.glEnableVertexAttribArray(Shader.VERTEX_LOC);
+
+        // color
+        offset = 3 * Buffers.SIZEOF_FLOAT;
+        gl.glVertexAttribPointer(Shader.COLOR_LOC, 4, GL3.GL_FLOAT, false, stride, offset);
+        gl.glEnableVertexAttribArray(Shader.COLOR_LOC);
+
+        // texture
+        offset = (3 + 4) * Buffers.SIZEOF_FLOAT;
+        gl.glVertexAttribPointer(Shader.TEX_COORD_LOC, 2, GL3.GL_FLOAT, false, stride, offset);
+        gl.glEnableVertexAttribArray(Shader.TEX_COORD_LOC);
+
+        // normals
+        offset = (3 + 4 + 2) * Buffers.SIZEOF_FLOAT;
+        gl.glVertexAttribPointer(Shader.NORMAL_LOC, 3, GL3.GL_FLOAT, false, stride, offset);
+        gl.glEnableVertexAttribArray(Shader.NORMAL_LOC);
+
+        // generate the instanced shadow VAO, it only needs the positions
+        // and takes one modelview matrix per instance from a second VBO
+        gl.glGenVertexArrays(1, vaoID, 0);
+        mesh.shadowVaoID = vaoID[0];
+        gl.glBindVertexArray(mesh.shadowVaoID);
+        gl.glVertexAttribPointer(Shader.VERTEX_LOC, 3, GL3.GL_FLOAT, false, stride, 0);
+        gl.glEnableVertexAttribArray(Shader.VERTEX_LOC);
+
+        gl.glGenBuffers(1, vboID, 0);
+        mesh.instanceBufID = vboID[0];
+        mesh.instanceData = Buffers.newDirectFloatBuffer(Mesh.MAX_SHADOW_INSTANCES * 16);
+        gl.glBindBuffer(GL3.GL_ARRAY_BUFFER, mesh.instanceBufID);
+        gl.glBufferData(GL3.GL_ARRAY_BUFFER, (long) mesh.instanceData.capacity() * Buffers.SIZEOF_FLOAT, null,
+                GL3.GL_STREAM_DRAW);
+        // a mat4 attribute occupies four consecutive locations, one per column
+        int matrixStride = 16 * Buffers.SIZEOF_FLOAT;
+        for (int column = 0; column < 4; column++) {
+            int location = Shader.INSTANCE_MODELVIEW_LOC + column;
+            gl.glVertexAttribPointer(location, 4, GL3.GL_FLOAT, false, matrixStride,
+                    (long) column * 4 * Buffers.SIZEOF_FLOAT);
+            gl.glEnableVertexAttribArray(location);
+            gl.glVertexAttribDivisor(location, 1);
+        }
+
+        gl.glBindVertexArray(0);
+        return mesh;
+    }
+
+    // maps the binary cache of a .vbo file, converting the text file once if the cache is missing or outdated
+    static MeshFile loadMeshFile(String filename) {
+        int perVertexFloats = MeshFile.floatsPerVertex(MeshFile.LAYOUT_PCTN);
+        Path binPath = MeshFile.cachePath(filename);
+        try {
+            if (!MeshFile.isStale(binPath, filename)) {
+                try {
+                    return MeshFile.map(binPath);
+                } catch (IOException e) {
+                    System.out.println(e.getMessage() + ", converting " + filename + " again");
+                }
+            }
+            float[] vertexData = loadVertexData(filename, perVertexFloats);
+            if (vertexData.length == 0) {
+                return MeshFile.empty(MeshFile.LAYOUT_PCTN);
+            }
+            MeshFile.write(binPath, vertexData, MeshFile.LAYOUT_PCTN);
+            return MeshFile.map(binPath);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return MeshFile.empty(MeshFile.LAYOUT_PCTN);
+    }
+
+    static float[] loadVertexData(String filename, int perVertexFloats) {
+        float[] floatArray = new float[0];
+
+        // read vertex data from file
+        int vertSize = 0;
+        try {
+            InputStream is = new FileInputStream(filename);
+            BufferedReader br = new BufferedReader(new InputStreamReader(is));
+            String line = br.readLine();
+            if (line != null) {
+                vertSize = Integer.parseInt(line);
+                floatArray = new float[vertSize];
+            }
+            int i = 0;
+            while ((line = br.readLine()) != null && i < floatArray.length) {
+                floatArray[i] = Float.parseFloat(line);
+                i++;
+            }
+            if (i != vertSize || (vertSize % perVertexFloats) != 0) {
+                floatArray = new float[0];
+            }
+            br.close();
+        } catch (FileNotFoundException e) {
+            System.out.println("Can not find vbo data file " + filename);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return floatArray;
+    }
+}
+
+class Shader {
+    // fixed vertex attribute locations, so a VAO works with every program
+    static final int VERTEX_LOC = 0;
+    static final int COLOR_LOC = 1;
+    static final int TEX_COORD_LOC = 2;
+    static final int NORMAL_LOC = 3;
+    static final int INSTANCE_MODELVIEW_LOC = 4;
+
+    // PBR, toon and noise shading
+    static final int SHADING_MODES = 3;
+
+    // The programs are specialized with #define permutations instead of
+    // branching per fragment: SHADING selects the BRDF, SHADOW_PASS builds
+    // the instanced shadow program.
+    static final String VERTEX_SOURCE = """
+in vec3 inputPosition;
+
+#ifdef SHADOW_PASS
+
+in mat4 instanceModelview;
+
+void main(){
+    gl_Position = projection * instanceModelview * vec4(inputPosition, 1.0);
+}
+
+#else
+
+in vec4 inputColor;
+in vec2 inputTexCoord;
+in vec3 inputNormal;
+
+out vec3 forFragColor;
+out vec2 forFragTexCoord;
+out vec3 normal;
+out vec3 vertPos;
+
+void main(){
+    forFragColor = inputColor.rgb;
+    forFragTexCoord = inputTexCoord;
+    normal = (normalMat * vec4(inputNormal, 0.0)).xyz;
+    vec4 vertPos4 = modelview * vec4(inputPosition, 1.0);
+    vertPos = vec3(vertPos4) / vertPos4.w;
+    gl_Position =  projection * modelview * vec4(inputPosition, 1.0);
+}
+
+#endif
+""";
+
+    static final String FRAGMENT_SOURCE = """
+out vec4 outputColor;
+
+#ifdef SHADOW_PASS
+
+void main() {
+    outputColor = vec4(0.1, 0.1, 0.1, 1.0);
+}
+
+#else
+
+in vec2 forFragTexCoord;
+in vec3 normal;
+in vec3 vertPos;
+in vec3 forFragColor;
+
+uniform sampler2D myTexture;
+
+const vec4 lightColor = vec4(1.0, 1.0, 1.0, 1.0);
+const vec3 ambientLight = vec3(0.1, 0.1, 0.1);
+const float reflectance = 0.5f;
+const float irradiPerp = 5.0f;
+
+#define RECIPROCAL_PI 0.3183098861837907
+
+// Simple noise function based on UV coordinates
+float noise(vec2 uv) {
+    return fract(sin(dot(uv, vec2(12.9898, 78.233))) * 43758.5453);
+}
+
+vec3 fresnelSchlick(float cosTheta, vec3 F0) {
+    return F0 + (1.0 - F0) * pow(1.0 - cosTheta, 5.0);
+}
+
+float D_GGX(float NoH, float roughness) {
+    float alpha = roughness * roughness;
+    float alpha2 = alpha * alpha;
+    float NoH2 = NoH * NoH;
+    float b = (NoH2 * (alpha2 - 1.0) + 1.0);
+    return alpha2 * RECIPROCAL_PI / (b * b);
+}
+
+float G1_GGX_Schlick(float NoV, float roughness) {
+    float alpha = roughness * roughness;
+    float k = alpha / 2.0;
+    return max(NoV, 0.001) / (NoV * (1.0 - k) + k);
+}
+
+float G_Smith(float NoV, float NoL, float roughness) {
+    return G1_GGX_Schlick(NoL, roughness) * G1_GGX_Schlick(NoV, roughness);
+}
+
+vec3 microfacetBRDF(vec3 L, vec3 V, vec3 N, float metallic, float roughness, vec3 baseColor, float reflectance) {
+    vec3 H = normalize(V + L);
+    float NoV = clamp(dot(N, V), 0.0, 1.0);
+    float NoL = clamp(dot(N, L), 0.0, 1.0);
+    float NoH = clamp(dot(N, H), 0.0, 1.0);
+    float VoH = clamp(dot(V, H), 0.0, 1.0);
+
+    vec3 f0 = vec3(0.16 * (reflectance * reflectance));
+    f0 = mix(f0, baseColor, metallic);
+
+    vec3 F = fresnelSchlick(VoH, f0);
+    float D = D_GGX(NoH, roughness);
+    float G = G_Smith(NoV, NoL, roughness);
+
+    vec3 spec = (F * D * G) / (4.0 * max(NoV, 0.001) * max(NoL, 0.001));
+    vec3 rhoD = baseColor * (1.0 - F) * (1.0 - metallic);
+    vec3 diff = rhoD * RECIPROCAL_PI;
+
+    return diff + spec;
+}
+
+vec3 toonBRDF(vec3 lightDir, vec3 viewDir, vec3 normal, vec3 phongDiffuseCol, vec3 phongSpecularCol, float phongShininess) {
+    vec3 color = phongDiffuseCol * 0.5; // Reduce diffuse brightness slightly
+
+    vec3 halfDir = normalize(viewDir + lightDir);
+    float specDot = max(dot(halfDir, normal), 0.0);
+
+    float specIntensity = smoothstep(0.9, 0.99, pow(specDot, phongShininess));\s
+
+    color += specIntensity * phongSpecularCol * 0.2;\s
+
+    return color;
+}
+
+vec3 noiseShader(vec3 lightDir, vec3 normal, vec3 baseColor) {
+    float n = noise(forFragTexCoord * 10.0);
+    float intensity = max(dot(normal, lightDir), 0.0);
+    return baseColor * (0.5 + 0.9 * n) * intensity;
+}
+
+void main() {
+    vec3 n = normalize(normal);
+    vec3 lightDir = normalize(-lightDirection.xyz);
+    vec3 viewDir = normalize(-vertPos);
+
+    vec3 textureColor = texture(myTexture, forFragTexCoord).rgb;
+    vec3 baseColor = forFragColor * textureColor;
+    baseColor = pow(baseColor, vec3(2.2)); // gamma correction
+
+    vec3 radiance = ambientLight * baseColor;
+    float irradiance = max(dot(lightDir, n), 0.0) * irradiPerp;
+
+    if (irradiance > 0.0) {
+#if SHADING == 1 // Toon shading
+        vec3 brdf = toonBRDF(lightDir, viewDir, n, baseColor, vec3(1.0), 8.0);
+#elif SHADING == 2 // Noise shader
+        vec3 brdf = noiseShader(lightDir, n, baseColor);
+#else // Physically Based Rendering (PBR)
+        vec3 brdf = microfacetBRDF(lightDir, viewDir, n, metallic, roughness, baseColor, reflectance);
+#endif
+
+        radiance += brdf * irradiance * lightColor.rgb;
+    }
+
+    radiance = pow(radiance, vec3(1.0 / 2.2)); // gamma correction
+
+    outputColor = vec4(radiance, 1.0);
+}
+
+#endif
+""";
+
+    // one program per shading mode
+    int[] progIDs = new int[SHADING_MODES];
+    int shadowProgID = 0;
+
+    private ProgramCache programCache;
+
+    public void setupShaders(GLAutoDrawable d) {
+        GL3 gl = d.getGL().getGL3(); // get the OpenGL 3 graphics context
+        long startTime = System.nanoTime();
+        programCache = new ProgramCache(gl);
+
+        for (int shading = 0; shading < SHADING_MODES; shading++) {
+            progIDs[shading] = createProgram(d, "#define SHADING " + shading + "\n");
+        }
+        shadowProgID = createProgram(d, "#define SHADOW_PASS\n");
+
+        System.out.printf("Built shader programs in %.1f ms%s%n", (System.nanoTime() - startTime) / 1e6,
+                programCache.isSupported() ? "" : " (no program binary support)");
+    }
+
+    // returns the program for a permutation, loaded from the program cache if possible
+    private int createProgram(GLAutoDrawable d, String defines) {
+        GL3 gl = d.getGL().getGL3(); // get the OpenGL 3 graphics context
+
+        String[] vs = new String[]{"#version 140\n", defines, UniformBlocks.FRAME_BLOCK, UniformBlocks.OBJECT_BLOCK,
+                VERTEX_SOURCE};
+        String[] fs = new String[]{"#version 140\n", defines, UniformBlocks.FRAME_BLOCK, FRAGMENT_SOURCE};
+
+        String key = programCache.key(vs, fs);
+        int progID = programCache.load(gl, key);
+        if (progID == 0) {
+            progID = compileProgram(d, vs, fs);
+            programCache.store(gl, progID, key);
+        }
+
+        // uniform block bindings and uniform values are not part of a program binary,
+        // so they are set up for cached and compiled programs alike
+
+        // connect the uniform blocks to the binding points shared by all programs
+        bindUniformBlock(gl, progID, "Frame", UniformBlocks.FRAME_BINDING);
+        bindUniformBlock(gl, progID, "Object", UniformBlocks.OBJECT_BINDING);
+
+        // "myTexture" is a user-provided UNIFORM variable
+        // of the fragment shader, it always samples texture unit 0
+        int texLoc = gl.glGetUniformLocation(progID, "myTexture");
+        if (texLoc >= 0) {
+            gl.glUseProgram(progID);
+            gl.glUniform1i(texLoc, 0);
+            gl.glUseProgram(0);
+        }
+
+        return progID;
+    }
+
+    private int compileProgram(GLAutoDrawable d, String[] vs, String[] fs) {
+        GL3 gl = d.getGL().getGL3(); // get the OpenGL 3 graphics context
+
+        int textVertID = gl.glCreateShader(GL3.GL_VERTEX_SHADER);
+        int textFragID = gl.glCreateShader(GL3.GL_FRAGMENT_SHADER);
+
+        gl.glShaderSource(textVertID, vs.length, vs, null, 0);
+        gl.glShaderSource(textFragID, fs.length, fs, null, 0);
+
+        // compile the shader
+        gl.glCompileShader(textVertID);
+        gl.glCompileShader(textFragID);
+
+        // check for errors
+        printShaderInfoLog(d, textVertID);
+        printShaderInfoLog(d, textFragID);
+
+        // create program and attach shaders
+        int progID = gl.glCreateProgram();
+        gl.glAttachShader(progID, textVertID);
+        gl.glAttachShader(progID, textFragID);
+
+        // "outColor" is a user-provided OUT variable
+        // of the fragment shader.
+        // Its output is bound to the first color buffer
+        // in the framebuffer
+        gl.glBindFragDataLocation(progID, 0, "outputColor");
+
+        // "inputPosition" and "inputColor" are user-provided
+        // IN variables of the vertex shader.
+        // They are bound to fixed locations before linking,
+        // the VAOs of the meshes rely on them
+        gl.glBindAttribLocation(progID, VERTEX_LOC, "inputPosition");
+        gl.glBindAttribLocation(progID, COLOR_LOC, "inputColor");
+        gl.glBindAttribLocation(progID, TEX_COORD_LOC, "inputTexCoord");
+        gl.glBindAttribLocation(progID, NORMAL_LOC, "inputNormal");
+        gl.glBindAttribLocation(progID, INSTANCE_MODELVIEW_LOC, "instanceModelview");
+
+        // link the program
+        programCache.prepare(gl, progID);
+        gl.glLinkProgram(progID);
+        // output error messages
+        printProgramInfoLog(d, progID);
+
+        return progID;
+    }
+
+    private static void bindUniformBlock(GL3 gl, int progID, String blockName, int binding) {
+        int blockIndex = gl.glGetUniformBlockIndex(progID, blockName);
+        if (blockIndex != GL3.GL_INVALID_INDEX) {
+            gl.glUniformBlockBinding(progID, blockIndex, binding);
+        }
+    }
+
+    private static void printShaderInfoLog(GLAutoDrawable d, int obj) {
+        GL3 gl = d.getGL().getGL3(); // get the OpenGL 3 graphics context
+        IntBuffer infoLogLengthBuf = IntBuffer.allocate(1);
+        int infoLogLength;
+        gl.glGetShaderiv(obj, GL3.GL_INFO_LOG_LENGTH, infoLogLengthBuf);
+        infoLogLength = infoLogLengthBuf.get(0);
+        if (infoLogLength > 0) {
+            ByteBuffer byteBuffer = ByteBuffer.allocate(infoLogLength);
+            gl.glGetShaderInfoLog(obj, infoLogLength, infoLogLengthBuf, byteBuffer);
+            for (byte b : byteBuffer.array()) {
+                System.err.print((char) b);
+            }
+        }
+    }
+
+    private static void printProgramInfoLog(GLAutoDrawable d, int obj) {
+        GL3 gl = d.getGL().getGL3(); // get the OpenGL 3 graphics context
+        IntBuffer infoLogLengthBuf = IntBuffer.allocate(1);
+        int infoLogLength;
+        gl.glGetProgramiv(obj, GL3.GL_INFO_LOG_LENGTH, infoLogLengthBuf);
+        infoLogLength = infoLogLengthBuf.get(0);
+        if (infoLogLength > 0) {
+            ByteBuffer byteBuffer = ByteBuffer.allocate(infoLogLength);
+            gl.glGetProgramInfoLog(obj, infoLogLength, infoLogLengthBuf, byteBuffer);
+            for (byte b : byteBuffer.array()) {
+                System.err.print((char) b);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,208 @@
+package pong3d;
+
+// Computer opponent: drives a paddle's moveUp and moveDown towards where
+// the ball will cross the paddle's plane. The crossing is worked out in
+// closed form, the wall bounces at +-1 fold the straight path back into
+// the court; a ball going away is followed through the other paddle's hit,
+// with the spin the other paddle gives it at its current velocity.
+//
+// The prediction is cached and only worked out again when the ball's
+// velocity changes, at a serve, a bounce or a hit, so an update() costs a
+// few comparisons on most ticks and never more than one prediction.
+//
+// A Level adds what makes the bot beatable: it reacts to a new approach,
+// a serve or a paddle hit, only reactionTicks later, and aims off the
+// paddle's center by up to error times its half height, drawn once per
+// approach; from about 1.2 on the ball can slip past. A wall bounce does
+// not move the crossing, so it neither restarts the delay nor draws a new
+// error.
+//
+// usage: java -cp game/target/classes pong3d.PredictingBot [matches]
+// plays every level against every other headless and prints player one's wins
+class PredictingBot {
+    static class Level {
+        static final Level EASY = new Level("easy", 24, 1.8f, false);
+        static final Level NORMAL = new Level("normal", 12, 1.35f, false);
+        static final Level HARD = new Level("hard", 6, 1.0f, true);
+        static final Level PERFECT = new Level("perfect", 0, 0f, true);
+        static final Level[] ALL = {EASY, NORMAL, HARD, PERFECT};
+
+        final String name;
+        final int reactionTicks;
+        final float error;
+        // waits where the ball will come back instead of in the center
+        final boolean anticipate;
+
+        Level(String name, int reactionTicks, float error, boolean anticipate) {
+            this.name = name;
+            this.reactionTicks = reactionTicks;
+            this.error = error;
+            this.anticipate = anticipate;
+        }
+
+        static Level named(String name) {
+            for (Level level : ALL) {
+                if (level.name.equalsIgnoreCase(name)) {
+                    return level;
+                }
+            }
+            throw new IllegalArgumentException("unknown bot level " + name);
+        }
+    }
+
+    // the paddle stops within this distance of the target
+    static final float DEAD_ZONE = 0.03f;
+
+    private final Simulation simulation;
+    private final Player player;
+    private final Player other;
+    // player one plays on the left
+    private final boolean left;
+    final Level level;
+    private final SimulationRandom random;
+
+    // the ball velocity the prediction was made for
+    private float predictedVelocityX = Float.NaN;
+    private float predictedVelocityY = Float.NaN;
+    private float target;
+    // the new target is taken over at reactTick, aimed off by aimError
+    private float pendingTarget;
+    private float aimError;
+    private long reactTick;
+    private long tick;
+    long predictions;
+
+    public PredictingBot(Simulation simulation, Player player, Level level, long seed) {
+        this.simulation = simulation;
+        this.player = player;
+        this.left = player == simulation.playerOne;
+        this.other = left ? simulation.playerTwo : simulation.playerOne;
+        this.level = level;
+        this.random = new SimulationRandom(seed);
+    }
+
+    // call before every Simulation.update()
+    public void update() {
+        tick++;
+        Ball ball = simulation.ball;
+        if (ball.velocityX() != predictedVelocityX) {
+            // a serve or a hit, the ball takes a new path to the paddle
+            aimError = (random.nextFloat() * 2 - 1) * level.error;
+            reactTick = tick + level.reactionTicks;
+        }
+        if (ball.velocityX() != predictedVelocityX || ball.velocityY() != predictedVelocityY) {
+            predictedVelocityX = ball.velocityX();
+            predictedVelocityY = ball.velocityY();
+            pendingTarget = predict() + aimError * player.scaleY();
+            predictions++;
+        }
+        if (tick >= reactTick) {
+            target = pendingTarget;
+        }
+
+        // where the paddle comes to rest if the keys are let go now
+        float damping = player.store.damping[player.id];
+        float stop = player.posY() + player.velocityY() * damping / (1 - damping);
+        player.moveUp = target > stop + DEAD_ZONE;
+        player.moveDown = target < stop - DEAD_ZONE;
+    }
+
+    // the height the paddle should be at when the ball arrives
+    private float predict() {
+        Ball ball = simulation.ball;
+        float velocityX = ball.velocityX();
+        float velocityY = ball.velocityY();
+        if (velocityX == 0) {
+            // paused
+            return 0f;
+        }
+        boolean coming = left ? velocityX < 0 : velocityX > 0;
+        if (coming) {
+            return crossing(ball.posX(), ball.posY(), velocityX, velocityY, hitX(player, left));
+        }
+        if (!level.anticipate) {
+            return 0f;
+        }
+        // follow the ball to the other paddle, bounce it off with the other paddle's spin and come back
+        float otherX = hitX(other, !left);
+        float y = crossing(ball.posX(), ball.posY(), velocityX, velocityY, otherX);
+        float rotation = other.velocityY() * simulation.tuning.spin;
+        float returnVelocityX = left ? -velocityX + rotation * .0005f : -(velocityX + rotation * .0005f);
+        float returnVelocityY = velocityY + rotation * .0015f;
+        if (left ? returnVelocityX >= 0 : returnVelocityX <= 0) {
+            return y;
+        }
+        return crossing(otherX, y, returnVelocityX, returnVelocityY, hitX(player, left));
+    }
+
+    // the ball's center at the moment it touches the paddle's face
+    private float hitX(Player paddle, boolean leftSide) {
+        float face = paddle.scaleX() / 4f + simulation.ball.scaleX();
+        return leftSide ? paddle.posX() + face : paddle.posX() - face;
+    }
+
+    // the ball's height at x, the straight path folded back at the walls
+    static float crossing(float x, float y, float velocityX, float velocityY, float atX) {
+        float ticks = (atX - x) / velocityX;
+        float unfolded = y + velocityY * ticks + 1f;
+        // one wall to the other and back is 4 long
+        float phase = unfolded - 4f * (float) Math.floor(unfolded / 4f);
+        return phase <= 2f ? phase - 1f : 3f - phase;
+    }
+
+    public static void main(String[] args) {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int maxTicks = 3 * 60 * Simulation.TICK_RATE;
+        System.out.printf("player one's wins of %d matches to 3 points, draws after %d s in brackets%n", matches,
+                maxTicks / Simulation.TICK_RATE);
+        System.out.printf("%-10s", "one \\ two");
+        for (Level level : Level.ALL) {
+            System.out.printf("%14s", level.name);
+        }
+        System.out.println();
+
+        long ticks = 0;
+        long predictions = 0;
+        long start = System.nanoTime();
+        for (Level levelOne : Level.ALL) {
+            System.out.printf("%-10s", levelOne.name);
+            for (Level levelTwo : Level.ALL) {
+                int wins = 0;
+                int draws = 0;
+                for (int match = 0; match < matches; match++) {
+                    Simulation simulation = new Simulation(match);
+                    // bot seeds split off the match seed, not overlapping its stream
+                    SimulationRandom seeds = new SimulationRandom(match).split();
+                    PredictingBot one = new PredictingBot(simulation, simulation.playerOne, levelOne, seeds.nextLong());
+                    PredictingBot two = new PredictingBot(simulation, simulation.playerTwo, levelTwo, seeds.nextLong());
+                    int tick = 0;
+                    while (tick < maxTicks) {
+                        if (simulation.pauseGame) {
+                            if (simulation.scoreOne.getScore() >= 3 || simulation.scoreTwo.getScore() >= 3) {
+                                break;
+                            }
+                            simulation.startGame();
+                        }
+                        one.update();
+                        two.update();
+                        simulation.update();
+                        tick++;
+                    }
+                    ticks += tick;
+                    predictions += one.predictions + two.predictions;
+                    if (tick >= maxTicks) {
+                        draws++;
+                    } else if (simulation.scoreOne.getScore() > simulation.scoreTwo.getScore()) {
+                        wins++;
+                    }
+                }
+                System.out.printf("%8d (%3d)", wins, draws);
+            }
+            System.out.println();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d ticks in %.1f s, %.0f ns per tick for the simulation and both bots; "
+                + "a prediction every %.1f bot updates%n", ticks, seconds, seconds * 1e9 / ticks,
+                2.0 * ticks / predictions);
+    }
+}
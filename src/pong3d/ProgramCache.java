@@ -0,0 +1,129 @@
+package pong3d;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.jogamp.opengl.GL3;
+
+// On-disk cache of linked programs based on glGetProgramBinary/glProgramBinary.
+// A cache entry is keyed by the SHA-256 of the driver string and the shader
+// sources, so editing a shader or updating the driver misses the cache.
+//
+// File layout (little-endian): int binaryFormat, followed by the binary.
+class ProgramCache {
+    static final String CACHE_DIR = "cache/shader";
+
+    private final boolean supported;
+    private final String driver;
+
+    public ProgramCache(GL3 gl) {
+        int[] formats = new int[1];
+        if (gl.isFunctionAvailable("glGetProgramBinary") && gl.isFunctionAvailable("glProgramBinary")) {
+            gl.glGetIntegerv(GL3.GL_NUM_PROGRAM_BINARY_FORMATS, formats, 0);
+        }
+        supported = formats[0] > 0;
+        driver = gl.glGetString(GL3.GL_VENDOR) + "|" + gl.glGetString(GL3.GL_RENDERER) + "|"
+                + gl.glGetString(GL3.GL_VERSION);
+    }
+
+    public boolean isSupported() {
+        return supported;
+    }
+
+    public String key(String[] vs, String[] fs) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(driver.getBytes(StandardCharsets.UTF_8));
+            for (String source : vs) {
+                digest.update(source.getBytes(StandardCharsets.UTF_8));
+            }
+            // keep "vs" + "fs" from colliding with a different split of the same text
+            digest.update((byte) 0);
+            for (String source : fs) {
+                digest.update(source.getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // returns a linked program on a cache hit, otherwise 0
+    public int load(GL3 gl, String key) {
+        if (!supported) {
+            return 0;
+        }
+        Path path = Paths.get(CACHE_DIR, key + ".bin");
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            ByteBuffer file = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            int binaryFormat = file.getInt();
+            ByteBuffer binary = ByteBuffer.allocateDirect(file.remaining());
+            binary.put(file).flip();
+
+            int progID = gl.glCreateProgram();
+            gl.glProgramBinary(progID, binaryFormat, binary, binary.remaining());
+            int[] linked = new int[1];
+            gl.glGetProgramiv(progID, GL3.GL_LINK_STATUS, linked, 0);
+            if (linked[0] == GL3.GL_TRUE) {
+                return progID;
+            }
+            // the driver rejected the binary, compile from source and replace it
+            gl.glDeleteProgram(progID);
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    // has to be called before the program is linked so the driver keeps the binary
+    public void prepare(GL3 gl, int progID) {
+        if (supported) {
+            gl.glProgramParameteri(progID, GL3.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL3.GL_TRUE);
+        }
+    }
+
+    public void store(GL3 gl, int progID, String key) {
+        if (!supported) {
+            return;
+        }
+        int[] length = new int[1];
+        gl.glGetProgramiv(progID, GL3.GL_PROGRAM_BINARY_LENGTH, length, 0);
+        if (length[0] <= 0) {
+            return;
+        }
+        IntBuffer binaryLength = IntBuffer.allocate(1);
+        IntBuffer binaryFormat = IntBuffer.allocate(1);
+        ByteBuffer binary = ByteBuffer.allocateDirect(length[0]);
+        gl.glGetProgramBinary(progID, length[0], binaryLength, binaryFormat, binary);
+        binary.limit(binaryLength.get(0));
+
+        byte[] bytes = new byte[Integer.BYTES + binary.remaining()];
+        ByteBuffer file = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        file.putInt(binaryFormat.get(0));
+        file.put(binary);
+        try {
+            Path path = Paths.get(CACHE_DIR, key + ".bin");
+            Files.createDirectories(path.getParent());
+            Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.write(tmpPath, bytes);
+            Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
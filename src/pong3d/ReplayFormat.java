@@ -0,0 +1,87 @@
+package pong3d;
+
+import java.nio.ByteBuffer;
+
+// Replay files: the inputs of every tick plus full-state keyframes, so a
+// match can be played back from the start or from any keyframe.
+//
+// header: int MAGIC, int VERSION, long seed, int keyframeInterval
+// records, each starting with a tag byte:
+//   inputs (tag 0 - 31, the INPUT_ bits): varint ticks, the inputs repeat that many ticks
+//   KEYFRAME: long tick, SimulationSnapshot.SIZE ints, the state before that tick
+//   END: the index, int count and count times long tick and long offset of a
+//        keyframe, then long totalTicks, long indexOffset and int MAGIC
+// The recording ends with a keyframe of the final state. If the game died
+// before writing END, a player rebuilds the index from the records.
+class ReplayFormat {
+    static final int MAGIC = 0x50524c59;
+    // 2: SimulationRandom became SplitMix64, the keyframes of version 1 hold another random state
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+    // after the index: totalTicks, indexOffset, MAGIC
+    static final int FOOTER_SIZE = 8 + 8 + 4;
+
+    static final int INPUT_ONE_UP = 1;
+    static final int INPUT_ONE_DOWN = 2;
+    static final int INPUT_TWO_UP = 4;
+    static final int INPUT_TWO_DOWN = 8;
+    static final int INPUT_SERVE = 16;
+
+    static final byte KEYFRAME = 0x40;
+    static final byte END = 0x7f;
+    static final int KEYFRAME_SIZE = 1 + 8 + SimulationSnapshot.SIZE * 4;
+
+    // ten seconds, seeking then steps at most this many ticks
+    static final int DEFAULT_KEYFRAME_INTERVAL = 10 * Simulation.TICK_RATE;
+
+    // the inputs the live game steps this tick with, read once so the
+    // recording holds exactly what the simulation saw
+    static int inputs(Simulation simulation, boolean serve) {
+        int inputs = 0;
+        if (simulation.playerOne.moveUp) {
+            inputs |= INPUT_ONE_UP;
+        }
+        if (simulation.playerOne.moveDown) {
+            inputs |= INPUT_ONE_DOWN;
+        }
+        if (simulation.playerTwo.moveUp) {
+            inputs |= INPUT_TWO_UP;
+        }
+        if (simulation.playerTwo.moveDown) {
+            inputs |= INPUT_TWO_DOWN;
+        }
+        if (serve) {
+            inputs |= INPUT_SERVE;
+        }
+        return inputs;
+    }
+
+    static void apply(Simulation simulation, int inputs) {
+        simulation.playerOne.moveUp = (inputs & INPUT_ONE_UP) != 0;
+        simulation.playerOne.moveDown = (inputs & INPUT_ONE_DOWN) != 0;
+        simulation.playerTwo.moveUp = (inputs & INPUT_TWO_UP) != 0;
+        simulation.playerTwo.moveDown = (inputs & INPUT_TWO_DOWN) != 0;
+        if ((inputs & INPUT_SERVE) != 0 && simulation.pauseGame) {
+            simulation.startGame();
+        }
+    }
+
+    static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7fL) != 0) {
+            buffer.put((byte) (value & 0x7f | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
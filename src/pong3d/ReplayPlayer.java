@@ -0,0 +1,216 @@
+package pong3d;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+// Plays a replay file (see ReplayFormat) back into its own simulation. The
+// file is memory-mapped, seek() restores the nearest keyframe at or before
+// the tick and steps from there. Keyframes met while stepping are compared
+// with the simulated state, so a replay also checks the simulation is
+// deterministic.
+//
+// usage: java -cp game/target/classes pong3d.ReplayPlayer [file]
+// plays the replay headless as fast as possible and times random seeks
+class ReplayPlayer {
+    final Simulation simulation = new Simulation();
+    final long seed;
+    final int keyframeInterval;
+    private final MappedByteBuffer buffer;
+    private long[] keyframeTicks;
+    private long[] keyframeOffsets;
+    private int keyframes;
+    private long totalTicks;
+
+    // the tick the next step() plays, and the run of inputs it is in
+    private long tick;
+    private int runInputs;
+    private long runTicks;
+    private boolean ended;
+
+    private final SimulationSnapshot snapshot = new SimulationSnapshot();
+    private final SimulationSnapshot check = new SimulationSnapshot();
+    long keyframesChecked;
+    long keyframeMismatches;
+
+    public ReplayPlayer(Path path) throws IOException {
+        try (FileChannel file = FileChannel.open(path)) {
+            buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+        }
+        if (buffer.limit() < ReplayFormat.HEADER_SIZE || buffer.getInt(0) != ReplayFormat.MAGIC) {
+            throw new IOException(path + " is not a replay");
+        }
+        if (buffer.getInt(4) != ReplayFormat.VERSION) {
+            throw new IOException(path + " has replay version " + buffer.getInt(4));
+        }
+        seed = buffer.getLong(8);
+        keyframeInterval = buffer.getInt(16);
+        if (!readIndex()) {
+            System.out.println(path + " has no index, the recording did not finish; scanning it");
+            scanIndex();
+        }
+        if (keyframes == 0) {
+            throw new IOException(path + " has no keyframe");
+        }
+        // nothing is restored yet
+        ended = true;
+        seek(0);
+    }
+
+    private boolean readIndex() {
+        int end = buffer.limit();
+        if (end < ReplayFormat.HEADER_SIZE + ReplayFormat.FOOTER_SIZE
+                || buffer.getInt(end - 4) != ReplayFormat.MAGIC) {
+            return false;
+        }
+        totalTicks = buffer.getLong(end - ReplayFormat.FOOTER_SIZE);
+        int position = (int) buffer.getLong(end - 12);
+        buffer.position(position);
+        if (buffer.get() != ReplayFormat.END) {
+            return false;
+        }
+        keyframes = buffer.getInt();
+        keyframeTicks = new long[keyframes];
+        keyframeOffsets = new long[keyframes];
+        for (int i = 0; i < keyframes; i++) {
+            keyframeTicks[i] = buffer.getLong();
+            keyframeOffsets[i] = buffer.getLong();
+        }
+        return true;
+    }
+
+    // walks the records of a file without index, up to the last complete one
+    private void scanIndex() {
+        keyframeTicks = new long[16];
+        keyframeOffsets = new long[16];
+        buffer.position(ReplayFormat.HEADER_SIZE);
+        long ticks = 0;
+        try {
+            while (buffer.hasRemaining()) {
+                int position = buffer.position();
+                byte tag = buffer.get();
+                if (tag == ReplayFormat.KEYFRAME) {
+                    if (buffer.remaining() < ReplayFormat.KEYFRAME_SIZE - 1) {
+                        break;
+                    }
+                    if (keyframes == keyframeTicks.length) {
+                        keyframeTicks = Arrays.copyOf(keyframeTicks, keyframes * 2);
+                        keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframes * 2);
+                    }
+                    ticks = buffer.getLong();
+                    keyframeTicks[keyframes] = ticks;
+                    keyframeOffsets[keyframes] = position;
+                    keyframes++;
+                    buffer.position(buffer.position() + SimulationSnapshot.SIZE * 4);
+                } else if (tag >= 0 && tag < ReplayFormat.KEYFRAME) {
+                    ticks += ReplayFormat.getVarint(buffer);
+                } else {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            // the last record was cut off
+        }
+        // inputs after the last keyframe are played, a cut-off run is not
+        totalTicks = ticks;
+    }
+
+    public long tick() {
+        return tick;
+    }
+
+    public long totalTicks() {
+        return totalTicks;
+    }
+
+    // sets the simulation to the state before the given tick
+    public void seek(long target) {
+        target = Math.max(0, Math.min(target, totalTicks));
+        int keyframe = Arrays.binarySearch(keyframeTicks, 0, keyframes, target);
+        if (keyframe < 0) {
+            keyframe = -keyframe - 2;
+        }
+        // stepping on is cheaper than restoring if the target is ahead within the same keyframe
+        if (!(tick <= target && tick >= keyframeTicks[keyframe] && !ended)) {
+            buffer.position((int) keyframeOffsets[keyframe] + 1 + 8);
+            for (int i = 0; i < SimulationSnapshot.SIZE; i++) {
+                snapshot.data[i] = buffer.getInt();
+            }
+            snapshot.restore(simulation);
+            tick = keyframeTicks[keyframe];
+            runTicks = 0;
+            ended = false;
+        }
+        while (tick < target && step()) {
+        }
+    }
+
+    // plays one tick, returns false at the end of the replay
+    public boolean step() {
+        while (runTicks == 0) {
+            byte tag = ended || !buffer.hasRemaining() ? ReplayFormat.END : buffer.get(buffer.position());
+            if (tag == ReplayFormat.KEYFRAME && buffer.remaining() >= ReplayFormat.KEYFRAME_SIZE) {
+                buffer.get();
+                checkKeyframe();
+                continue;
+            }
+            // the end of the index, or of a recording that was cut off
+            if (tag < 0 || tag >= ReplayFormat.KEYFRAME || tick >= totalTicks) {
+                ended = true;
+                return false;
+            }
+            buffer.get();
+            runInputs = tag;
+            runTicks = ReplayFormat.getVarint(buffer);
+        }
+        ReplayFormat.apply(simulation, runInputs);
+        simulation.update();
+        runTicks--;
+        tick++;
+        return true;
+    }
+
+    private void checkKeyframe() {
+        buffer.getLong();
+        for (int i = 0; i < SimulationSnapshot.SIZE; i++) {
+            snapshot.data[i] = buffer.getInt();
+        }
+        check.save(simulation);
+        keyframesChecked++;
+        if (!check.matches(snapshot)) {
+            keyframeMismatches++;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path path = Path.of(args.length > 0 ? args[0] : "match.replay");
+        ReplayPlayer player = new ReplayPlayer(path);
+        System.out.printf("%s: %d ticks (%.0f s of play), seed %d, %d keyframes%n", path, player.totalTicks,
+                (double) player.totalTicks / Simulation.TICK_RATE, player.seed, player.keyframes);
+
+        for (int run = 0; run < 3; run++) {
+            player.seek(0);
+            long start = System.nanoTime();
+            while (player.step()) {
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.printf("Played in %.1f ms, %.0f ticks/s, %.0fx real time; %d keyframes checked, %d mismatches%n",
+                    nanos / 1e6, player.totalTicks * 1e9 / nanos, player.totalTicks * 1e9 / nanos / Simulation.TICK_RATE,
+                    player.keyframesChecked, player.keyframeMismatches);
+            player.keyframesChecked = 0;
+            player.keyframeMismatches = 0;
+        }
+        System.out.printf("Score %d : %d%n", player.simulation.scoreOne.getScore(), player.simulation.scoreTwo.getScore());
+
+        Random random = new Random(1);
+        int seeks = 1000;
+        long start = System.nanoTime();
+        for (int i = 0; i < seeks; i++) {
+            player.seek((long) (random.nextDouble() * player.totalTicks));
+        }
+        System.out.printf("Random seek: %.1f us average%n", (System.nanoTime() - start) / 1e3 / seeks);
+    }
+}
@@ -0,0 +1,207 @@
+package pong3d;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Records a match into a replay file (see ReplayFormat). The game thread
+// only encodes into memory chunks: runs of equal inputs and a keyframe
+// every keyframeInterval ticks. Full chunks go to a writer thread through
+// an unbounded queue and come back through a free list, so the game loop
+// never waits for the disk; at worst it allocates another chunk.
+//
+// usage: java -cp game/target/classes pong3d.ReplayRecorder [file] [ticks]
+// records a headless match of two paddles following the ball
+class ReplayRecorder {
+    static final int CHUNK_SIZE = 16 * 1024;
+
+    private final Simulation simulation;
+    private final int keyframeInterval;
+    private final FileChannel file;
+    private final LinkedBlockingQueue<ByteBuffer> full = new LinkedBlockingQueue<>();
+    private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    // queued after the last chunk, stops the writer
+    private final ByteBuffer endOfFile = ByteBuffer.allocate(0);
+    private final Thread writer;
+    private volatile IOException writeError;
+
+    private ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+    // file offset of the chunk's first byte
+    private long chunkOffset;
+    private long tick;
+    private int runInputs = -1;
+    private long runTicks;
+    private final SimulationSnapshot snapshot = new SimulationSnapshot();
+    // tick and file offset of every keyframe
+    private long[] keyframeTicks = new long[64];
+    private long[] keyframeOffsets = new long[64];
+    private int keyframes;
+    private boolean closed;
+
+    // Reseeds the simulation's random with seed, so the file names the seed
+    // the match runs on; the first keyframe is the current state.
+    public ReplayRecorder(Path path, Simulation simulation, long seed, int keyframeInterval) throws IOException {
+        this.simulation = simulation;
+        this.keyframeInterval = keyframeInterval;
+        file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        simulation.random.setSeed(seed);
+        chunk.putInt(ReplayFormat.MAGIC);
+        chunk.putInt(ReplayFormat.VERSION);
+        chunk.putLong(seed);
+        chunk.putInt(keyframeInterval);
+        writer = new Thread(this::write, "replay-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public ReplayRecorder(Path path, Simulation simulation) throws IOException {
+        this(path, simulation, simulation.seed, ReplayFormat.DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    // call before every tick with the inputs the tick is stepped with
+    public synchronized void record(int inputs) {
+        if (closed) {
+            return;
+        }
+        if (tick % keyframeInterval == 0) {
+            keyframe();
+        }
+        if (inputs != runInputs) {
+            endRun();
+            runInputs = inputs;
+        }
+        runTicks++;
+        tick++;
+    }
+
+    private void endRun() {
+        if (runTicks > 0) {
+            ensure(1 + 10);
+            chunk.put((byte) runInputs);
+            ReplayFormat.putVarint(chunk, runTicks);
+        }
+        runTicks = 0;
+    }
+
+    private void keyframe() {
+        endRun();
+        if (keyframes == keyframeTicks.length) {
+            keyframeTicks = Arrays.copyOf(keyframeTicks, keyframes * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframes * 2);
+        }
+        ensure(ReplayFormat.KEYFRAME_SIZE);
+        keyframeTicks[keyframes] = tick;
+        keyframeOffsets[keyframes] = chunkOffset + chunk.position();
+        keyframes++;
+        snapshot.save(simulation);
+        chunk.put(ReplayFormat.KEYFRAME);
+        chunk.putLong(tick);
+        for (int value : snapshot.data) {
+            chunk.putInt(value);
+        }
+    }
+
+    // hands the chunk to the writer if the next bytes do not fit
+    private void ensure(int bytes) {
+        if (chunk.remaining() >= bytes) {
+            return;
+        }
+        chunkOffset += chunk.position();
+        chunk.flip();
+        full.add(chunk);
+        chunk = free.poll();
+        if (chunk == null) {
+            chunk = ByteBuffer.allocate(CHUNK_SIZE);
+        }
+        chunk.clear();
+    }
+
+    // writes the final keyframe and the index, then waits for the writer
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        keyframe();
+        closed = true;
+        long indexOffset = chunkOffset + chunk.position();
+        ensure(1 + 4);
+        chunk.put(ReplayFormat.END);
+        chunk.putInt(keyframes);
+        for (int i = 0; i < keyframes; i++) {
+            ensure(16);
+            chunk.putLong(keyframeTicks[i]);
+            chunk.putLong(keyframeOffsets[i]);
+        }
+        ensure(ReplayFormat.FOOTER_SIZE);
+        chunk.putLong(tick);
+        chunk.putLong(indexOffset);
+        chunk.putInt(ReplayFormat.MAGIC);
+        chunk.flip();
+        full.add(chunk);
+        full.add(endOfFile);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        file.close();
+        if (writeError != null) {
+            throw writeError;
+        }
+    }
+
+    public long ticks() {
+        return tick;
+    }
+
+    private void write() {
+        try {
+            while (true) {
+                ByteBuffer buffer = full.take();
+                if (buffer == endOfFile) {
+                    return;
+                }
+                while (buffer.hasRemaining()) {
+                    file.write(buffer);
+                }
+                free.add(buffer);
+            }
+        } catch (IOException e) {
+            writeError = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path path = Path.of(args.length > 0 ? args[0] : "match.replay");
+        long ticks = args.length > 1 ? Long.parseLong(args[1]) : 60L * 60 * Simulation.TICK_RATE;
+
+        Simulation simulation = new Simulation();
+        ReplayRecorder recorder = new ReplayRecorder(path, simulation, 42, ReplayFormat.DEFAULT_KEYFRAME_INTERVAL);
+        long start = System.nanoTime();
+        for (long i = 0; i < ticks; i++) {
+            HeadlessRunner.track(simulation.playerOne, simulation.ball);
+            // player two misses now and then, so points are scored
+            if (i % 5 != 0) {
+                HeadlessRunner.track(simulation.playerTwo, simulation.ball);
+            }
+            int inputs = ReplayFormat.inputs(simulation, simulation.pauseGame);
+            recorder.record(inputs);
+            ReplayFormat.apply(simulation, inputs);
+            simulation.update();
+        }
+        recorder.close();
+        long nanos = System.nanoTime() - start;
+        System.out.printf("Recorded %d ticks (%.0f s of play) in %.1f ms: %d bytes, %.2f bytes per tick%n", ticks,
+                (double) ticks / Simulation.TICK_RATE, nanos / 1e6, path.toFile().length(),
+                (double) path.toFile().length() / ticks);
+        System.out.printf("Score %d : %d%n", simulation.scoreOne.getScore(), simulation.scoreTwo.getScore());
+    }
+}
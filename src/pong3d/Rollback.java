@@ -0,0 +1,121 @@
+package pong3d;
+
+// Rollback for online play. Every tick is stepped right away with the local
+// input and a prediction of the remote one, the remote player's newest known
+// input. The state before each tick is kept in a ring of snapshots; when
+// the real input of an earlier tick arrives and differs from what was
+// predicted, the state before that tick is restored and the ticks since are
+// stepped again with the corrected inputs.
+//
+// Inputs are NetProtocol button bits, player 0 steers player one.
+class Rollback {
+    // ticks that can be rolled back, about 130 ms at 120 Hz
+    static final int FRAMES = 16;
+
+    final Simulation simulation;
+    // state before the tick and the inputs it was stepped with, by tick % FRAMES
+    private final SimulationSnapshot[] snapshots = new SimulationSnapshot[FRAMES];
+    private final int[][] inputs = new int[2][FRAMES];
+    private long tick;
+
+    // newest tick with the real input of each player, and that input
+    private final long[] confirmedTick = {-1, -1};
+    private final int[] confirmedInput = new int[2];
+    // earliest tick whose input changed since the last rollback
+    private long firstChanged = Long.MAX_VALUE;
+
+    // statistics
+    long rollbacks;
+    long resimulatedTicks;
+
+    public Rollback(Simulation simulation) {
+        this.simulation = simulation;
+        for (int i = 0; i < FRAMES; i++) {
+            snapshots[i] = new SimulationSnapshot();
+        }
+    }
+
+    // the tick the next advance() steps
+    public long tick() {
+        return tick;
+    }
+
+    // the input to step a player with while the real one is not known
+    public int predict(int player) {
+        return confirmedInput[player];
+    }
+
+    public void advance(int buttonsOne, int buttonsTwo) {
+        int slot = slot(tick);
+        snapshots[slot].save(simulation);
+        inputs[0][slot] = buttonsOne;
+        inputs[1][slot] = buttonsTwo;
+        step(slot);
+        tick++;
+    }
+
+    // Records the real input of a player for an already stepped tick. The
+    // ticks after it that were stepped with a prediction are predicted
+    // again from it. Returns false if the tick is not in the ring (too old,
+    // or not stepped yet); resolve() does the rollback.
+    public boolean confirm(long tick, int player, int buttons) {
+        if (tick >= this.tick || tick < this.tick - FRAMES || tick < 0) {
+            return false;
+        }
+        int[] playerInputs = inputs[player];
+        long last = tick;
+        if (tick > confirmedTick[player]) {
+            confirmedTick[player] = tick;
+            confirmedInput[player] = buttons;
+            last = this.tick - 1;
+        }
+        for (long t = tick; t <= last; t++) {
+            int slot = slot(t);
+            if (playerInputs[slot] != buttons) {
+                playerInputs[slot] = buttons;
+                firstChanged = Math.min(firstChanged, t);
+            }
+        }
+        return true;
+    }
+
+    // rolls back to the earliest tick whose input changed and returns the
+    // number of ticks stepped again, 0 if all predictions were right
+    public int resolve() {
+        if (firstChanged == Long.MAX_VALUE) {
+            return 0;
+        }
+        int frames = (int) (tick - firstChanged);
+        firstChanged = Long.MAX_VALUE;
+        rollback(frames);
+        return frames;
+    }
+
+    // restores the state of frames ticks ago and steps those ticks again with the stored inputs
+    public void rollback(int frames) {
+        if (frames < 1 || frames > Math.min(FRAMES, tick)) {
+            throw new IllegalArgumentException("can not roll back " + frames + " ticks at tick " + tick);
+        }
+        long from = tick - frames;
+        snapshots[slot(from)].restore(simulation);
+        step(slot(from));
+        for (long t = from + 1; t < tick; t++) {
+            int slot = slot(t);
+            // the states after the first tick may differ now
+            snapshots[slot].save(simulation);
+            step(slot);
+        }
+        rollbacks++;
+        resimulatedTicks += frames;
+    }
+
+    private void step(int slot) {
+        NetProtocol.applyButtons(simulation, simulation.playerOne, inputs[0][slot]);
+        NetProtocol.applyButtons(simulation, simulation.playerTwo, inputs[1][slot]);
+        simulation.update();
+    }
+
+    private static int slot(long tick) {
+        return (int) (tick % FRAMES);
+    }
+}
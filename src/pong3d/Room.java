@@ -0,0 +1,91 @@
+package pong3d;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// One match on a RoomServer. Clients set their buttons from any thread;
+// the room applies them to the paddles at the start of each tick, which
+// runs on one of the server's pool threads, never two at once.
+//
+// A paused room whose players have pressed nothing for PARK_TICKS parks:
+// the server stops ticking it until the next button press.
+class Room {
+    static final int PARK_TICKS = Simulation.TICK_RATE;
+
+    final int id;
+    final Simulation simulation = new Simulation();
+    // NetProtocol button bits of both players
+    private volatile int buttonsOne, buttonsTwo;
+    private int idleTicks;
+    final AtomicBoolean parked = new AtomicBoolean();
+    volatile boolean closed;
+    private final RoomServer server;
+
+    // what a client is sent after every tick, readable from any thread
+    volatile float ballY, playerOneY, playerTwoY;
+    volatile boolean paused = true;
+
+    // tick budget accounting, only written by the ticking thread
+    long ticks;
+    long tickNanos;
+    long lastTickNanos;
+    long maxTickNanos;
+    long overBudget;
+    // set by tick(), read by the server once the tick is joined
+    boolean parking;
+
+    Room(int id, RoomServer server) {
+        this.id = id;
+        this.server = server;
+    }
+
+    public void setButtons(int player, int buttons) {
+        if (player == 0) {
+            buttonsOne = buttons;
+        } else {
+            buttonsTwo = buttons;
+        }
+        if (buttons != 0 && parked.compareAndSet(true, false)) {
+            server.wake(this);
+        }
+    }
+
+    // steps the simulation once and sets parking if the room parks itself
+    void tick(long budgetNanos) {
+        parking = step(budgetNanos);
+    }
+
+    private boolean step(long budgetNanos) {
+        long start = System.nanoTime();
+        int one = buttonsOne;
+        int two = buttonsTwo;
+        NetProtocol.applyButtons(simulation, simulation.playerOne, one);
+        NetProtocol.applyButtons(simulation, simulation.playerTwo, two);
+        simulation.update();
+
+        ballY = simulation.ball.posY();
+        playerOneY = simulation.playerOne.posY();
+        playerTwoY = simulation.playerTwo.posY();
+        paused = simulation.pauseGame;
+
+        long nanos = System.nanoTime() - start;
+        lastTickNanos = nanos;
+        ticks++;
+        tickNanos += nanos;
+        maxTickNanos = Math.max(maxTickNanos, nanos);
+        if (nanos > budgetNanos) {
+            overBudget++;
+        }
+
+        idleTicks = simulation.pauseGame && (one | two) == 0 ? idleTicks + 1 : 0;
+        if (idleTicks < PARK_TICKS) {
+            return false;
+        }
+        idleTicks = 0;
+        parked.set(true);
+        // a button pressed while we parked may have missed the flag, then we stay
+        if ((buttonsOne | buttonsTwo) != 0 && parked.compareAndSet(true, false)) {
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,118 @@
+package pong3d;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.LockSupport;
+
+// Load test of the RoomServer with simulated clients on one thread. In the
+// playing rooms both clients follow the ball as the room publishes it and
+// serve when the game is paused. The other rooms' clients are away and only
+// press serve now and then, so those rooms mostly park; each press wakes
+// the room for one point.
+//
+// usage: java -cp game/target/classes pong3d.RoomLoadTest [rooms] [seconds] [playingShare] [budgetMicros]
+class RoomLoadTest {
+    // away clients press serve on average this often
+    static final int AWAY_PRESS_TICKS = 20 * Simulation.TICK_RATE;
+
+    public static void main(String[] args) throws InterruptedException {
+        int roomCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 10.0;
+        double playingShare = args.length > 2 ? Double.parseDouble(args[2]) : 0.5;
+        long budgetNanos = args.length > 3 ? Long.parseLong(args[3]) * 1000 : RoomServer.DEFAULT_BUDGET_NANOS;
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        RoomServer server = new RoomServer(pool, budgetNanos);
+        Room[] rooms = new Room[roomCount];
+        for (int i = 0; i < roomCount; i++) {
+            rooms[i] = server.createRoom();
+        }
+        int playing = (int) (roomCount * playingShare);
+        Thread serverThread = new Thread(server, "room-server");
+        serverThread.start();
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d rooms, %d playing, %d cores, fork/join parallelism %d, budget %.0f us per room tick%n",
+                roomCount, playing, cores, pool.getParallelism(), budgetNanos / 1e3);
+        System.out.printf("%5s %7s %7s %11s %9s %7s %6s  %s%n", "time", "active", "parked", "room tick/s",
+                "cost/tick", "over", "late", "tick latency");
+
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        long end = start + (long) (seconds * 1e9);
+        long nextReport = start + 1_000_000_000L;
+        long nextTick = start;
+        long lastTicks = 0, lastNanos = 0, lastOver = 0, lastLate = 0;
+        while (System.nanoTime() < end) {
+            long now = System.nanoTime();
+            if (now >= nextReport) {
+                long ticks = server.roomTicks.sum();
+                long nanos = server.roomTickNanos.sum();
+                long over = server.overBudget.sum();
+                long late = server.lateTicks();
+                int active = server.activeRooms;
+                System.out.printf("%4.0fs %7d %7d %11d %6.0f ns %7d %6d  %s%n", (now - start) / 1e9, active,
+                        server.openRooms.get() - active, ticks - lastTicks,
+                        (double) (nanos - lastNanos) / Math.max(1, ticks - lastTicks), over - lastOver,
+                        late - lastLate, server.latency.summary());
+                server.latency.reset();
+                lastTicks = ticks;
+                lastNanos = nanos;
+                lastOver = over;
+                lastLate = late;
+                nextReport += 1_000_000_000L;
+            }
+            if (now < nextTick) {
+                LockSupport.parkNanos(Math.min(nextTick, nextReport) - now);
+                continue;
+            }
+            nextTick += Simulation.TICK_NANOS;
+            for (int i = 0; i < playing; i++) {
+                Room room = rooms[i];
+                room.setButtons(0, track(room, room.playerOneY));
+                room.setButtons(1, track(room, room.playerTwoY));
+            }
+            for (int i = playing; i < roomCount; i++) {
+                Room room = rooms[i];
+                room.setButtons(0, random.nextInt(AWAY_PRESS_TICKS) == 0 ? NetProtocol.BUTTON_SERVE : 0);
+                room.setButtons(1, 0);
+            }
+        }
+        server.stop();
+        serverThread.join();
+
+        long ticks = server.roomTicks.sum();
+        double meanCost = (double) server.roomTickNanos.sum() / Math.max(1, ticks);
+        System.out.printf("room tick cost: mean %.0f ns, %s%n", meanCost, server.tickCost.summary());
+        System.out.printf("active rooms per core now: %.0f, rooms per core the tick rate allows at the mean cost: %.0f%n",
+                (double) server.activeRooms / cores, Simulation.TICK_NANOS / meanCost);
+        Room worst = rooms[0];
+        int roomsOverBudget = 0;
+        for (Room room : rooms) {
+            if (room.overBudget > 0) {
+                roomsOverBudget++;
+            }
+            if (room.maxTickNanos > worst.maxTickNanos) {
+                worst = room;
+            }
+        }
+        System.out.printf("%d rooms went over budget at least once; slowest tick: room %d, %.1f us, %d of its %d ticks over%n",
+                roomsOverBudget, worst.id, worst.maxTickNanos / 1e3, worst.overBudget, worst.ticks);
+    }
+
+    // a client following the ball; it serves when the game is paused
+    private static int track(Room room, float paddleY) {
+        float ballY = room.ballY;
+        int buttons = 0;
+        if (ballY > paddleY + 0.05f) {
+            buttons |= NetProtocol.BUTTON_UP;
+        }
+        if (ballY < paddleY - 0.05f) {
+            buttons |= NetProtocol.BUTTON_DOWN;
+        }
+        if (room.paused) {
+            buttons |= NetProtocol.BUTTON_SERVE;
+        }
+        return buttons;
+    }
+}
@@ -0,0 +1,149 @@
+package pong3d;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lobby server running many independent matches, one Room each. A driver
+// thread wakes at Simulation.TICK_RATE and ticks all active rooms on a
+// fork/join pool, split into tasks of ROOMS_PER_TASK rooms so idle workers
+// steal from busy ones. Parked rooms are not in the active list at all and
+// cost nothing until a button press wakes them.
+//
+// Every room tick is accounted against a budget, and the server records the
+// tick cost and the latency from the scheduled tick time to the end of the
+// room's tick, which includes waiting for a worker.
+class RoomServer implements Runnable {
+    // rooms per fork/join leaf, a room tick is too short to be a task of its own
+    static final int ROOMS_PER_TASK = 64;
+    static final long DEFAULT_BUDGET_NANOS = 20_000;
+
+    final ForkJoinPool pool;
+    final long budgetNanos;
+
+    // rooms to add to the active list: new ones and woken ones
+    private final ConcurrentLinkedQueue<Room> pending = new ConcurrentLinkedQueue<>();
+    // only touched by the driver thread
+    private Room[] active = new Room[ROOMS_PER_TASK];
+    private int activeCount;
+    private final AtomicInteger nextID = new AtomicInteger();
+    private volatile boolean running;
+    private final TickPacer pacer = new TickPacer(Simulation.TICK_NANOS);
+
+    // metrics, readable from any thread
+    final AtomicInteger openRooms = new AtomicInteger();
+    volatile int activeRooms;
+    final LatencyHistogram latency = new LatencyHistogram();
+    final LatencyHistogram tickCost = new LatencyHistogram();
+    final LongAdder roomTicks = new LongAdder();
+    final LongAdder roomTickNanos = new LongAdder();
+    final LongAdder overBudget = new LongAdder();
+
+    public RoomServer(ForkJoinPool pool, long budgetNanos) {
+        this.pool = pool;
+        this.budgetNanos = budgetNanos;
+    }
+
+    public Room createRoom() {
+        Room room = new Room(nextID.getAndIncrement(), this);
+        openRooms.incrementAndGet();
+        pending.add(room);
+        return room;
+    }
+
+    public void closeRoom(Room room) {
+        if (!room.closed) {
+            room.closed = true;
+            openRooms.decrementAndGet();
+        }
+    }
+
+    void wake(Room room) {
+        pending.add(room);
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    // server ticks that ended after the next one was due
+    public long lateTicks() {
+        return pacer.lateTicks;
+    }
+
+    @Override
+    public void run() {
+        running = true;
+        while (running) {
+            tick(pacer.awaitTick());
+        }
+    }
+
+    void tick(long scheduled) {
+        for (Room room = pending.poll(); room != null; room = pending.poll()) {
+            if (activeCount == active.length) {
+                active = Arrays.copyOf(active, active.length * 2);
+            }
+            active[activeCount++] = room;
+        }
+        if (activeCount > 0) {
+            pool.invoke(new TickTask(scheduled, 0, activeCount));
+        }
+
+        // drop the rooms that parked or were closed
+        int kept = 0;
+        for (int i = 0; i < activeCount; i++) {
+            Room room = active[i];
+            if (!room.closed && !room.parking) {
+                active[kept++] = room;
+            }
+        }
+        Arrays.fill(active, kept, activeCount, null);
+        activeCount = kept;
+        activeRooms = kept;
+    }
+
+    class TickTask extends RecursiveAction {
+        final long scheduled;
+        final int from, to;
+
+        TickTask(long scheduled, int from, int to) {
+            this.scheduled = scheduled;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROOMS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TickTask(scheduled, from, mid), new TickTask(scheduled, mid, to));
+                return;
+            }
+            long nanos = 0;
+            int ticked = 0;
+            int over = 0;
+            for (int i = from; i < to; i++) {
+                Room room = active[i];
+                if (room.closed) {
+                    continue;
+                }
+                room.tick(budgetNanos);
+                long cost = room.lastTickNanos;
+                ticked++;
+                nanos += cost;
+                if (cost > budgetNanos) {
+                    over++;
+                }
+                tickCost.record(cost);
+                latency.record(System.nanoTime() - scheduled);
+            }
+            roomTicks.add(ticked);
+            roomTickNanos.add(nanos);
+            overBudget.add(over);
+        }
+    }
+}
@@ -0,0 +1,909 @@
+package pong3d;
+
+import java.util.*;
+
+// The gameplay state and rules, without any dependency on GL or AWT. One
+// call to update() advances the game by one tick of 1 / TICK_RATE seconds,
+// so it can be stepped headless as fast as the CPU allows. The renderer
+// only reads the state.
+//
+// A simulation is deterministic: the same seed and the same inputs give bit
+// for bit the same ticks on every JVM and thread. All of its arithmetic is
+// float +, -, *, / and comparisons, which Java rounds the same everywhere,
+// and its only randomness is its own seeded random.
+class Simulation {
+    // the gameplay constants are tuned for 120 ticks per second
+    static final int TICK_RATE = 120;
+    static final long TICK_NANOS = 1_000_000_000L / TICK_RATE;
+
+    static final int POWER_UP_TICKS = 4 * TICK_RATE;
+    // power-ups taken while others are still active stack up to this many
+    static final int MAX_ACTIVE_POWER_UPS = 2;
+
+    // impacts resolved per tick, after the last one the ball moves on without collision
+    static final int MAX_IMPACTS = 4;
+    static final int NO_HIT = 0;
+    static final int HIT_WALL = 1;
+    static final int HIT_PLAYER_ONE = 2;
+    static final int HIT_PLAYER_TWO = 3;
+
+    // broad phase categories
+    static final int CATEGORY_BALL = 1;
+    static final int CATEGORY_PADDLE = 2;
+    static final int CATEGORY_POWER_UP = 4;
+
+    boolean pauseGame = true;
+    final long seed;
+    final SimulationTuning tuning;
+    // per simulation, so simulations on different threads do not share it
+    final SimulationRandom random;
+    // hash of the state after each tick, only kept after enableChecksums()
+    private SimulationSnapshot checksumSnapshot;
+    long checksum;
+
+    // counted for balance runs, not part of the state
+    int paddleHits;
+    int powerUpsSpawned;
+    int powerUpsTaken;
+
+    // the entities' components, and handles on the entities
+    final EntityStore entities = new EntityStore(8);
+    final Player playerOne;
+    final Score scoreOne;
+    final Player playerTwo;
+    final Score scoreTwo;
+    final Ball ball;
+    final PowerUp powerUp;
+    final Court court;
+
+    // timed effects, run on the simulation thread as part of update()
+    TimingWheel effects = new TimingWheel();
+    int activePowerUps;
+    // taken power-ups until they wear off, pending while their timeout is
+    final PowerUpEffect[] powerUpEffects = new PowerUpEffect[MAX_ACTIVE_POWER_UPS];
+
+    // the court with some margin, balls leave it on the left and right before they score
+    SpatialGrid grid = new SpatialGrid(-2.0f, -1.25f, 2.0f, 1.25f, 0.5f, 4);
+    final int ballID = grid.add(CATEGORY_BALL, CATEGORY_PADDLE | CATEGORY_POWER_UP);
+    final int playerOneID = grid.add(CATEGORY_PADDLE, 0);
+    final int playerTwoID = grid.add(CATEGORY_PADDLE, 0);
+    final int powerUpID = grid.add(CATEGORY_POWER_UP, 0);
+    // candidate pairs of the current tick, set by the broad phase
+    boolean nearPlayer, nearPowerUp;
+    // face of the paddle at the last computed impact, the ball is put against it
+    private float faceOne, faceTwo;
+    private final SpatialGrid.PairVisitor collectPair = (a, b) -> {
+        if (a == ballID || b == ballID) {
+            int other = a == ballID ? b : a;
+            nearPlayer |= other == playerOneID || other == playerTwoID;
+            nearPowerUp |= other == powerUpID;
+        }
+    };
+
+    public Simulation() {
+        this(System.nanoTime());
+    }
+
+    public Simulation(long seed) {
+        this(seed, SimulationTuning.DEFAULT);
+    }
+
+    public Simulation(long seed, SimulationTuning tuning) {
+        this.seed = seed;
+        this.tuning = tuning;
+        random = new SimulationRandom(seed);
+        // Instantiate game elements
+        court = new Court(entities);
+        ball = new Ball(entities);
+        playerOne = new Player(entities, -1.8f, 0f, -90);
+        playerTwo = new Player(entities, 1.8f, 0f, 90);
+        scoreOne = new Score(entities, -0.2f, 0.85f, 0.3f);
+        scoreTwo = new Score(entities, 0.2f, 0.85f, 0.3f);
+        playerOne.ACCELERATION_VALUE = playerTwo.ACCELERATION_VALUE = tuning.acceleration;
+        entities.damping[playerOne.id] = entities.damping[playerTwo.id] = tuning.damping;
+        // inactive until it spawns
+        powerUp = new PowerUp(entities);
+        for (int i = 0; i < powerUpEffects.length; i++) {
+            powerUpEffects[i] = new PowerUpEffect(this);
+        }
+    }
+
+    public void update() {
+        effects.advance();
+
+        updateEntities();
+        // the broad phase only decides which objects the ball's sweep is tested against
+        updateBroadPhase();
+        moveBall();
+        checkCollisionBallBorder();
+
+        // spawn power up
+        if (random.nextInt(10000) > tuning.powerUpSpawnThreshold && (ball.posY() > 0.2f || ball.posY() < -0.02f)) {
+            spawnPowerUp();
+        }
+
+        if (checksumSnapshot != null) {
+            checksumSnapshot.save(this);
+            checksum = checksumSnapshot.checksum();
+        }
+    }
+
+    // the physics system only touches the entities' own components and does
+    // not read the angles, so this gives the same state as storing, moving
+    // and spinning entity by entity
+    void updateEntities() {
+        entities.storePreviousStateAndSpin();
+        court.update();
+        playerOne.steer();
+        playerTwo.steer();
+        entities.movePhysics();
+    }
+
+    // Keeps checksum up to date with every tick, so two runs of a match, on
+    // network peers, in a replay or on other threads, can be compared tick
+    // by tick. Costs a snapshot per tick, so it is off by default.
+    public void enableChecksums() {
+        checksumSnapshot = new SimulationSnapshot();
+        checksumSnapshot.save(this);
+        checksum = checksumSnapshot.checksum();
+    }
+
+    // the AABBs are a superset of what the narrow phase tests: the ball's
+    // covers its whole path of this tick with the full ball size, which the
+    // power-up test uses
+    void updateBroadPhase() {
+        EntityStore e = entities;
+        int id = ball.id;
+        float x = e.posX[id];
+        float y = e.posY[id];
+        float endX = x + e.velocityX[id];
+        float endY = y + e.velocityY[id];
+        float sizeX = e.sizeX[id];
+        float sizeY = e.sizeY[id];
+        grid.update(ballID, Math.min(x, endX) - sizeX, Math.min(y, endY) - sizeY, Math.max(x, endX) + sizeX,
+                Math.max(y, endY) + sizeY);
+        id = playerOne.id;
+        grid.update(playerOneID, e.borderLeft[id], e.borderDown[id], e.borderRight[id], e.borderUp[id]);
+        id = playerTwo.id;
+        grid.update(playerTwoID, e.borderLeft[id], e.borderDown[id], e.borderRight[id], e.borderUp[id]);
+        id = powerUp.id;
+        if (e.isActive(id)) {
+            grid.updateCentered(powerUpID, e.posX[id], e.posY[id], e.sizeX[id], e.sizeY[id]);
+        } else {
+            grid.disable(powerUpID);
+        }
+        nearPlayer = false;
+        nearPowerUp = false;
+        grid.forEachPair(collectPair);
+    }
+
+    public void startGame() {
+        if (scoreOne.getScore() > 2 || scoreTwo.getScore() > 2) {
+            scoreOne.setScore(0);
+            scoreTwo.setScore(0);
+        }
+        ball.setVelocityX(0.03f);
+        ball.setVelocityY(0.015f);
+        pauseGame = false;
+    }
+
+    public void score(Score score) {
+        removePowerUp();
+
+        score.setScore(score.getScore() + 1);
+        ball.reset();
+        pauseGame = true;
+    }
+
+    public void spawnPowerUp() {
+        if (!powerUp.spawned() && activePowerUps < MAX_ACTIVE_POWER_UPS) {
+            powerUp.setRandomValues(random);
+            powerUp.storePreviousState();
+            entities.activate(powerUp.id);
+            powerUpsSpawned++;
+        }
+    }
+
+    public void removePowerUp() {
+        entities.deactivate(powerUp.id);
+    }
+
+    // moves the ball by one tick of its velocity. The path is cut at every
+    // impact on a wall or paddle (time of impact), the ball bounces there and
+    // goes on with the rest of the tick, so a fast ball or a low tick rate
+    // can not carry it through a paddle.
+    void moveBall() {
+        // all float arrays may alias for the JIT, so the sweep keeps the
+        // ball's components in locals and writes them back when it changes them
+        EntityStore e = entities;
+        int id = ball.id;
+        float x = e.posX[id];
+        float y = e.posY[id];
+        float velocityX = e.velocityX[id];
+        float velocityY = e.velocityY[id];
+        float remaining = 1.0f;
+        for (int impacts = 0; ; impacts++) {
+            float x0 = x;
+            float y0 = y;
+            float dx = velocityX * remaining;
+            float dy = velocityY * remaining;
+
+            // fraction of this step until the first impact
+            float t = 1.0f;
+            int hit = NO_HIT;
+            if (impacts < MAX_IMPACTS) {
+                float wall = wallImpact(y0, dy);
+                if (wall < t) {
+                    t = wall;
+                    hit = HIT_WALL;
+                }
+                if (nearPlayer) {
+                    // the paddles move during the tick too, they are tested where they are at the impact
+                    float tickTime = 1.0f - remaining;
+                    float one = playerOneImpact(x0, y0, dx, dy, tickTime, remaining);
+                    if (one < t) {
+                        t = one;
+                        hit = HIT_PLAYER_ONE;
+                    }
+                    float two = playerTwoImpact(x0, y0, dx, dy, tickTime, remaining);
+                    if (two < t) {
+                        t = two;
+                        hit = HIT_PLAYER_TWO;
+                    }
+                }
+            }
+
+            x = x0 + dx * t;
+            y = y0 + dy * t;
+            if (nearPowerUp && powerUp.spawned() && segmentHitsPowerUp(x0, y0, x, y)) {
+                pickUpPowerUp();
+            }
+
+            float rotation;
+            switch (hit) {
+                case HIT_WALL:
+                    velocityY = -velocityY;
+                    break;
+                case HIT_PLAYER_ONE:
+                    x = faceOne + e.scaleX[id];
+                    // rotate ball
+                    rotation = e.velocityY[playerOne.id] * tuning.spin;
+                    e.rotationZ[id] = rotation;
+                    paddleHits++;
+                    // reflect ball
+                    velocityX = -(velocityX + (rotation * .0005f));
+                    velocityY += (rotation * .0015f);
+                    break;
+                case HIT_PLAYER_TWO:
+                    x = faceTwo - e.scaleX[id];
+                    // rotate ball
+                    rotation = e.velocityY[playerTwo.id] * tuning.spin;
+                    e.rotationZ[id] = rotation;
+                    paddleHits++;
+                    // reflect ball
+                    velocityX = -velocityX + (rotation * .0005f);
+                    velocityY += (rotation * .0015f);
+                    break;
+                default:
+                    e.posX[id] = x;
+                    e.posY[id] = y;
+                    ball.updateBorders();
+                    return;
+            }
+            // pickUpPowerUp() reads which way the ball goes
+            e.velocityX[id] = velocityX;
+            e.velocityY[id] = velocityY;
+            remaining -= remaining * t;
+        }
+    }
+
+    // the ceiling and the ground bounce the ball's center, like the discrete test did
+    static float wallImpact(float y0, float dy) {
+        if (dy > 0) {
+            if (y0 >= 1f) {
+                return 0f;
+            }
+            if (y0 + dy > 1f) {
+                return (1f - y0) / dy;
+            }
+        } else if (dy < 0) {
+            if (y0 <= -1f) {
+                return 0f;
+            }
+            if (y0 + dy < -1f) {
+                return (-1f - y0) / dy;
+            }
+        }
+        return 1f;
+    }
+
+    // Returns the fraction of the step until the ball's left edge reaches the
+    // face of player one, 1 if it does not. The face is bent back by the hit
+    // position's distance to the paddle center; a ball already inside the
+    // paddle's band hits right away, like the discrete test did. The hit
+    // position depends on the face, so the face is placed for the ball's
+    // start and then once more for where and when the ball meets that face;
+    // the bend is only an eighth of the distance, so one pass is enough.
+    // The paddle is taken where it is at that time, as overlapsPlayer does.
+    float playerOneImpact(float x0, float y0, float dx, float dy, float tickTime, float remaining) {
+        if (dx >= 0) {
+            return 1f;
+        }
+        EntityStore e = entities;
+        int id = playerOne.id;
+        float left = x0 - e.scaleX[ball.id];
+        faceOne = e.borderRight[id] - faceBend(id, y0, tickTime);
+        if (left >= faceOne) {
+            float t0 = Math.min((faceOne - left) / dx, 1f);
+            faceOne = e.borderRight[id] - faceBend(id, y0 + dy * t0, tickTime + remaining * t0);
+        }
+        float t;
+        if (left >= faceOne) {
+            t = (faceOne - left) / dx;
+            if (t >= 1f) {
+                return 1f;
+            }
+        } else if (left > e.borderLeft[id]) {
+            t = 0f;
+        } else {
+            return 1f;
+        }
+        return overlapsPlayer(id, y0 + dy * t, tickTime + remaining * t) ? t : 1f;
+    }
+
+    // same as playerOneImpact for the right edge and player two
+    float playerTwoImpact(float x0, float y0, float dx, float dy, float tickTime, float remaining) {
+        if (dx <= 0) {
+            return 1f;
+        }
+        EntityStore e = entities;
+        int id = playerTwo.id;
+        float right = x0 + e.scaleX[ball.id];
+        faceTwo = e.borderLeft[id] + faceBend(id, y0, tickTime);
+        if (right <= faceTwo) {
+            float t0 = Math.min((faceTwo - right) / dx, 1f);
+            faceTwo = e.borderLeft[id] + faceBend(id, y0 + dy * t0, tickTime + remaining * t0);
+        }
+        float t;
+        if (right <= faceTwo) {
+            t = (faceTwo - right) / dx;
+            if (t >= 1f) {
+                return 1f;
+            }
+        } else if (right < e.borderRight[id]) {
+            t = 0f;
+        } else {
+            return 1f;
+        }
+        return overlapsPlayer(id, y0 + dy * t, tickTime + remaining * t) ? t : 1f;
+    }
+
+    // the paddle's center at the given time of the tick, it moved from prevPosY to posY
+    private float playerY(int player, float tickTime) {
+        float prevY = entities.prevPosY[player];
+        return prevY + (entities.posY[player] - prevY) * tickTime;
+    }
+
+    // how far the face is bent back where the ball at ballY meets it at the given time of the tick
+    private float faceBend(int player, float ballY, float tickTime) {
+        return Math.abs(Math.abs(ballY) - Math.abs(playerY(player, tickTime))) * 0.125f;
+    }
+
+    // vertical overlap of the ball at ballY with the paddle at the given time of the tick
+    private boolean overlapsPlayer(int player, float ballY, float tickTime) {
+        EntityStore e = entities;
+        float playerY = playerY(player, tickTime);
+        float ballScaleY = e.scaleY[ball.id];
+        float scaleY = e.scaleY[player];
+        return ballY - ballScaleY < playerY + scaleY && ballY + ballScaleY > playerY - scaleY;
+    }
+
+    // whether the ball touches the power-up anywhere on the way from (x0, y0) to (x1, y1)
+    boolean segmentHitsPowerUp(float x0, float y0, float x1, float y1) {
+        EntityStore e = entities;
+        int id = powerUp.id;
+        return segmentHitsBox(x0 - e.posX[id], x1 - e.posX[id], e.sizeX[id] + e.sizeX[ball.id],
+                y0 - e.posY[id], y1 - e.posY[id], e.sizeY[id] + e.sizeY[ball.id]);
+    }
+
+    // slab test of a segment against the open box |x| < halfX, |y| < halfY
+    static boolean segmentHitsBox(float x0, float x1, float halfX, float y0, float y1, float halfY) {
+        float tMin = 0f;
+        float tMax = 1f;
+        float dx = x1 - x0;
+        if (dx == 0) {
+            if (Math.abs(x0) >= halfX) {
+                return false;
+            }
+        } else {
+            float tA = (-halfX - x0) / dx;
+            float tB = (halfX - x0) / dx;
+            tMin = Math.max(tMin, Math.min(tA, tB));
+            tMax = Math.min(tMax, Math.max(tA, tB));
+        }
+        float dy = y1 - y0;
+        if (dy == 0) {
+            if (Math.abs(y0) >= halfY) {
+                return false;
+            }
+        } else {
+            float tA = (-halfY - y0) / dy;
+            float tB = (halfY - y0) / dy;
+            tMin = Math.max(tMin, Math.min(tA, tB));
+            tMax = Math.min(tMax, Math.max(tA, tB));
+        }
+        return tMin < tMax;
+    }
+
+    public void checkCollisionBallBorder() {
+        // let and right border
+        if (ball.posX() > 1.9f) {
+            score(scoreOne);
+        }
+        if (ball.posX() < -1.9f) {
+            score(scoreTwo);
+        }
+    }
+
+    void pickUpPowerUp() {
+        PowerUpEffect effect = freePowerUpEffect();
+        effect.type = powerUp.type;
+        if (ball.velocityX() < 0) {
+            effect.consumer = playerTwo;
+            effect.other = playerOne;
+        } else {
+            effect.consumer = playerOne;
+            effect.other = playerTwo;
+        }
+        powerUp.applyPowerUp(effect.consumer, effect.other);
+        activePowerUps++;
+        powerUpsTaken++;
+        effects.schedule(effect.timeout, POWER_UP_TICKS);
+
+        removePowerUp();
+    }
+
+    // spawnPowerUp() keeps the active power-ups below MAX_ACTIVE_POWER_UPS, so one is always free
+    private PowerUpEffect freePowerUpEffect() {
+        for (PowerUpEffect effect : powerUpEffects) {
+            if (!effect.timeout.isPending()) {
+                return effect;
+            }
+        }
+        throw new IllegalStateException("more than " + MAX_ACTIVE_POWER_UPS + " active power-ups");
+    }
+}
+
+// A taken power-up until it wears off. The type is kept here as the power-up
+// itself is reused for the next spawn.
+class PowerUpEffect implements Runnable {
+    private final Simulation simulation;
+    final TimingWheel.Timeout timeout = new TimingWheel.Timeout();
+    int type;
+    Player consumer, other;
+
+    public PowerUpEffect(Simulation simulation) {
+        this.simulation = simulation;
+        timeout.task = this;
+    }
+
+    public void run() {
+        PowerUp.removePowerUp(type, consumer, other);
+        simulation.activePowerUps--;
+    }
+}
+
+// A handle on one entity of an EntityStore: its id, and its component
+// values under the names the game code uses. The subclasses add the state
+// only their kind of entity has and the rules that move it.
+abstract class Entity {
+    final EntityStore store;
+    final int id;
+
+    Entity(EntityStore store, int components) {
+        this.store = store;
+        this.id = store.create(components);
+    }
+
+    public float posX() {
+        return store.posX[id];
+    }
+
+    public void setPosX(float posX) {
+        store.posX[id] = posX;
+    }
+
+    public float posY() {
+        return store.posY[id];
+    }
+
+    public void setPosY(float posY) {
+        store.posY[id] = posY;
+    }
+
+    public float angleX() {
+        return store.angleX[id];
+    }
+
+    public float angleY() {
+        return store.angleY[id];
+    }
+
+    public void setAngleY(float angleY) {
+        store.angleY[id] = angleY;
+    }
+
+    public float angleZ() {
+        return store.angleZ[id];
+    }
+
+    public void setAngleZ(float angleZ) {
+        store.angleZ[id] = angleZ;
+    }
+
+    public float rotationY() {
+        return store.rotationY[id];
+    }
+
+    public void setRotationY(float rotationY) {
+        store.rotationY[id] = rotationY;
+    }
+
+    public float rotationZ() {
+        return store.rotationZ[id];
+    }
+
+    public void setRotationZ(float rotationZ) {
+        store.rotationZ[id] = rotationZ;
+    }
+
+    public float prevPosX() {
+        return store.prevPosX[id];
+    }
+
+    public void setPrevPosX(float prevPosX) {
+        store.prevPosX[id] = prevPosX;
+    }
+
+    public float prevPosY() {
+        return store.prevPosY[id];
+    }
+
+    public void setPrevPosY(float prevPosY) {
+        store.prevPosY[id] = prevPosY;
+    }
+
+    public float prevAngleY() {
+        return store.prevAngleY[id];
+    }
+
+    public void setPrevAngleY(float prevAngleY) {
+        store.prevAngleY[id] = prevAngleY;
+    }
+
+    public float prevAngleZ() {
+        return store.prevAngleZ[id];
+    }
+
+    public void setPrevAngleZ(float prevAngleZ) {
+        store.prevAngleZ[id] = prevAngleZ;
+    }
+
+    public float velocityX() {
+        return store.velocityX[id];
+    }
+
+    public void setVelocityX(float velocityX) {
+        store.velocityX[id] = velocityX;
+    }
+
+    public float velocityY() {
+        return store.velocityY[id];
+    }
+
+    public void setVelocityY(float velocityY) {
+        store.velocityY[id] = velocityY;
+    }
+
+    public float scaleX() {
+        return store.scaleX[id];
+    }
+
+    public float scaleY() {
+        return store.scaleY[id];
+    }
+
+    public void setScaleY(float scaleY) {
+        store.scaleY[id] = scaleY;
+    }
+
+    public float borderLeft() {
+        return store.borderLeft[id];
+    }
+
+    public void setBorderLeft(float borderLeft) {
+        store.borderLeft[id] = borderLeft;
+    }
+
+    public float borderRight() {
+        return store.borderRight[id];
+    }
+
+    public void setBorderRight(float borderRight) {
+        store.borderRight[id] = borderRight;
+    }
+
+    public float borderUp() {
+        return store.borderUp[id];
+    }
+
+    public void setBorderUp(float borderUp) {
+        store.borderUp[id] = borderUp;
+    }
+
+    public float borderDown() {
+        return store.borderDown[id];
+    }
+
+    public void setBorderDown(float borderDown) {
+        store.borderDown[id] = borderDown;
+    }
+
+    public float sizeX() {
+        return store.sizeX[id];
+    }
+
+    public float sizeY() {
+        return store.sizeY[id];
+    }
+
+    public float sizeZ() {
+        return store.sizeZ[id];
+    }
+
+    public void storePreviousState() {
+        store.storePreviousState(id);
+    }
+
+    // state of the previous tick, rendering interpolates towards the current one
+    public float renderPosX(float alpha) {
+        float prev = store.prevPosX[id];
+        return prev + (store.posX[id] - prev) * alpha;
+    }
+
+    public float renderPosY(float alpha) {
+        float prev = store.prevPosY[id];
+        return prev + (store.posY[id] - prev) * alpha;
+    }
+
+    public float renderAngleY(float alpha) {
+        float prev = store.prevAngleY[id];
+        return prev + (store.angleY[id] - prev) * alpha;
+    }
+
+    public float renderAngleZ(float alpha) {
+        float prev = store.prevAngleZ[id];
+        return prev + (store.angleZ[id] - prev) * alpha;
+    }
+}
+
+// moved by EntityStore.movePhysics, damping is in the store next to the velocity
+class Player extends Entity {
+    boolean moveUp, moveDown = false;
+    float ACCELERATION_VALUE = 0.012f;
+
+    public Player(EntityStore store, float posX, float posY, float angleZ) {
+        super(store, EntityStore.TRANSFORM | EntityStore.PHYSICS | EntityStore.PADDLE | EntityStore.COLLIDER
+                | EntityStore.RENDERABLE);
+        store.scaleX[id] = store.scaleY[id] = store.scaleZ[id] = 0.35f;
+        store.sizeX[id] = store.sizeY[id] = store.sizeZ[id] = 0.35f * 2;
+        store.damping[id] = 0.75f;
+        setPosX(posX);
+        setPosY(posY);
+        setAngleZ(angleZ);
+    }
+
+    @Override
+    public void setScaleY(float scaleY) {
+        super.setScaleY(scaleY);
+        store.sizeY[id] = scaleY * 2;
+    }
+
+    // turns this tick's input into the acceleration the physics system applies
+    public void steer() {
+        float acceleration = 0.0f;
+        if (moveUp) {
+            acceleration += ACCELERATION_VALUE;
+        }
+        if (moveDown) {
+            acceleration += -ACCELERATION_VALUE;
+        }
+        store.accelerationY[id] = acceleration;
+    }
+}
+
+class Ball extends Entity {
+    public Ball(EntityStore store) {
+        super(store, EntityStore.TRANSFORM | EntityStore.PHYSICS | EntityStore.COLLIDER | EntityStore.RENDERABLE);
+        store.scaleX[id] = store.scaleY[id] = store.scaleZ[id] = 0.075f;
+        store.sizeX[id] = store.sizeY[id] = store.sizeZ[id] = 0.075f * 2;
+    }
+
+    // the ball is moved by Simulation.moveBall, which calls this afterwards
+    public void updateBorders() {
+        EntityStore e = store;
+        int id = this.id;
+        float posX = e.posX[id];
+        float posY = e.posY[id];
+        float scaleX = e.scaleX[id];
+        float scaleY = e.scaleY[id];
+        e.borderLeft[id] = posX - scaleX;
+        e.borderRight[id] = posX + scaleX;
+        e.borderUp[id] = posY + scaleY;
+        e.borderDown[id] = posY - scaleY;
+    }
+
+    public void reset() {
+        setVelocityX(0);
+        setVelocityY(0);
+        setPosX(0);
+        setPosY(0);
+        setAngleZ(0);
+        setRotationZ(0);
+        // jump to the center instead of sliding there
+        storePreviousState();
+    }
+}
+
+// active in the store while it is on the court, drifts by EntityStore.movePhysics
+class PowerUp extends Entity {
+    int type = 0;
+
+    public PowerUp(EntityStore store) {
+        super(store, EntityStore.TRANSFORM | EntityStore.PHYSICS | EntityStore.DRIFT | EntityStore.COLLIDER
+                | EntityStore.RENDERABLE);
+        store.sizeX[id] = store.sizeY[id] = store.sizeZ[id] = 0.1f;
+        store.deactivate(id);
+    }
+
+    public boolean spawned() {
+        return store.isActive(id);
+    }
+
+    public void setSpawned(boolean spawned) {
+        if (spawned) {
+            store.activate(id);
+        } else {
+            store.deactivate(id);
+        }
+    }
+
+    public void setType(int powerUpType) {
+        type = powerUpType;
+    }
+
+    public void setRandomValues(Random rand) {
+        // set random velocity
+        setVelocityY(rand.nextInt(1000) / 1000f * 0.01f);
+        // set random type
+        var randomInt = rand.nextInt(2);
+        setType(randomInt);
+    }
+
+    // removePowerUp() undoes it
+    public void applyPowerUp(Player consumer, Player other) {
+        switch (type) {
+            case 0:
+                consumer.setScaleY(consumer.scaleY() * 2);
+                break;
+            case 1:
+                other.setScaleY(other.scaleY() / 2);
+                break;
+            case 2:
+                consumer.ACCELERATION_VALUE *= 2;
+                break;
+        }
+    }
+
+    static void removePowerUp(int type, Player consumer, Player other) {
+        switch (type) {
+            case 0:
+                consumer.setScaleY(consumer.scaleY() / 2);
+                break;
+            case 1:
+                other.setScaleY(other.scaleY() * 2);
+                break;
+            case 2:
+                consumer.ACCELERATION_VALUE /= 2;
+                break;
+        }
+    }
+}
+
+class Court extends Entity {
+    public Court(EntityStore store) {
+        super(store, EntityStore.TRANSFORM | EntityStore.RENDERABLE);
+        setRotationY(-0.01f);
+        store.sizeX[id] = store.sizeY[id] = store.sizeZ[id] = 2f;
+    }
+
+    // on top of the spin system, so the court turns by twice its rotation per tick
+    public void update() {
+        store.angleY[id] += store.rotationY[id];
+    }
+}
+
+class Score extends Entity {
+    private int score = 0;
+
+    public Score(EntityStore store, float posX, float posY, float size) {
+        super(store, EntityStore.TRANSFORM | EntityStore.RENDERABLE);
+        setPosX(posX);
+        setPosY(posY);
+        store.sizeX[id] = store.sizeY[id] = store.sizeZ[id] = size;
+    }
+
+    public void setScore(int score) {
+        if (score > 3) {
+            return;
+        }
+        this.score = score;
+    }
+
+    public int getScore() {
+        return this.score;
+    }
+}
+
+// SplitMix64, the generator of java.util.SplittableRandom, behind the
+// java.util.Random methods the game uses, with its state in a plain field
+// so it can be saved and restored along with the rest of the simulation
+// state. Unlike Random there is no atomic seed to update, and split() gives
+// an independent generator, e.g. a seed per match from a tournament's seed.
+class SimulationRandom extends Random {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    // no initializer, Random's constructor sets it through setSeed()
+    private long state;
+
+    public SimulationRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        state = seed;
+    }
+
+    // the other methods of Random build on next() and nextLong()
+    @Override
+    protected int next(int bits) {
+        return (int) (mix64(state += GOLDEN_GAMMA) >>> (64 - bits));
+    }
+
+    @Override
+    public long nextLong() {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+
+    // starts at an unrelated point of the same sequence, at 2^64 values
+    // long two streams do not meet in practice
+    public SimulationRandom split() {
+        return new SimulationRandom(nextLong());
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+}
@@ -0,0 +1,200 @@
+package pong3d;
+
+import java.util.Arrays;
+
+// The complete state of a Simulation in a preallocated int array, floats
+// as their raw bits: every entity including the previous tick's
+// values, the pending power-up effects with their deadlines and the state
+// of the simulation's random. Restoring a snapshot and stepping on gives bit for bit the
+// same ticks as the original run, which is what rollback needs.
+//
+// Derived state is left out: the broad phase is rebuilt every tick and the
+// sizes follow from the scales. So are the paddles' moveUp and moveDown,
+// they are input and set before every tick.
+class SimulationSnapshot {
+    static final int SIZE = 128;
+
+    final int[] data = new int[SIZE];
+    private int position;
+
+    public void save(Simulation simulation) {
+        position = 0;
+        putBoolean(simulation.pauseGame);
+        putInt(simulation.activePowerUps);
+        putLong(simulation.effects.tick());
+        // fixed layout, so equal states give equal arrays
+        for (PowerUpEffect effect : simulation.powerUpEffects) {
+            boolean pending = effect.timeout.isPending();
+            putBoolean(pending);
+            putLong(pending ? effect.timeout.deadline : 0);
+            putInt(pending ? effect.type : 0);
+            putBoolean(pending && effect.consumer == simulation.playerOne);
+        }
+
+        saveObject(simulation.court);
+        saveObject(simulation.ball);
+        putFloat(simulation.ball.velocityX());
+        putFloat(simulation.ball.velocityY());
+        putFloat(simulation.ball.borderLeft());
+        putFloat(simulation.ball.borderRight());
+        putFloat(simulation.ball.borderUp());
+        putFloat(simulation.ball.borderDown());
+        savePlayer(simulation.playerOne);
+        savePlayer(simulation.playerTwo);
+        saveObject(simulation.scoreOne);
+        putInt(simulation.scoreOne.getScore());
+        saveObject(simulation.scoreTwo);
+        putInt(simulation.scoreTwo.getScore());
+        saveObject(simulation.powerUp);
+        putFloat(simulation.powerUp.velocityY());
+        putInt(simulation.powerUp.type);
+        putBoolean(simulation.powerUp.spawned());
+
+        putLong(simulation.random.getState());
+    }
+
+    public void restore(Simulation simulation) {
+        position = 0;
+        simulation.pauseGame = getBoolean();
+        simulation.activePowerUps = getInt();
+        long tick = getLong();
+        simulation.effects.reset(tick);
+        for (PowerUpEffect effect : simulation.powerUpEffects) {
+            boolean pending = getBoolean();
+            long deadline = getLong();
+            int type = getInt();
+            boolean consumerIsOne = getBoolean();
+            if (pending) {
+                effect.type = type;
+                effect.consumer = consumerIsOne ? simulation.playerOne : simulation.playerTwo;
+                effect.other = consumerIsOne ? simulation.playerTwo : simulation.playerOne;
+                simulation.effects.schedule(effect.timeout, deadline - tick);
+            }
+        }
+
+        restoreObject(simulation.court);
+        restoreObject(simulation.ball);
+        simulation.ball.setVelocityX(getFloat());
+        simulation.ball.setVelocityY(getFloat());
+        simulation.ball.setBorderLeft(getFloat());
+        simulation.ball.setBorderRight(getFloat());
+        simulation.ball.setBorderUp(getFloat());
+        simulation.ball.setBorderDown(getFloat());
+        restorePlayer(simulation.playerOne);
+        restorePlayer(simulation.playerTwo);
+        restoreObject(simulation.scoreOne);
+        simulation.scoreOne.setScore(getInt());
+        restoreObject(simulation.scoreTwo);
+        simulation.scoreTwo.setScore(getInt());
+        PowerUp powerUp = simulation.powerUp;
+        restoreObject(powerUp);
+        powerUp.setVelocityY(getFloat());
+        powerUp.type = getInt();
+        // the order of the active entities does not matter to the systems
+        powerUp.setSpawned(getBoolean());
+
+        simulation.random.setState(getLong());
+    }
+
+    // 64 bit FNV-1a over the ints, equal states give equal checksums. Four
+    // interleaved lanes, so the multiplications do not wait on each other.
+    public long checksum() {
+        long a = 0xcbf29ce484222325L, b = a + 1, c = a + 2, d = a + 3;
+        for (int i = 0; i < SIZE; i += 4) {
+            a = (a ^ data[i]) * 0x100000001b3L;
+            b = (b ^ data[i + 1]) * 0x100000001b3L;
+            c = (c ^ data[i + 2]) * 0x100000001b3L;
+            d = (d ^ data[i + 3]) * 0x100000001b3L;
+        }
+        return ((a * 31 + b) * 31 + c) * 31 + d;
+    }
+
+    // true if both snapshots hold the same state
+    public boolean matches(SimulationSnapshot other) {
+        return Arrays.equals(data, other.data);
+    }
+
+    private void saveObject(Entity object) {
+        putFloat(object.angleY());
+        putFloat(object.angleZ());
+        putFloat(object.rotationY());
+        putFloat(object.rotationZ());
+        putFloat(object.posX());
+        putFloat(object.posY());
+        putFloat(object.prevAngleY());
+        putFloat(object.prevAngleZ());
+        putFloat(object.prevPosX());
+        putFloat(object.prevPosY());
+    }
+
+    private void restoreObject(Entity object) {
+        object.setAngleY(getFloat());
+        object.setAngleZ(getFloat());
+        object.setRotationY(getFloat());
+        object.setRotationZ(getFloat());
+        object.setPosX(getFloat());
+        object.setPosY(getFloat());
+        object.setPrevAngleY(getFloat());
+        object.setPrevAngleZ(getFloat());
+        object.setPrevPosX(getFloat());
+        object.setPrevPosY(getFloat());
+    }
+
+    private void savePlayer(Player player) {
+        saveObject(player);
+        putFloat(player.ACCELERATION_VALUE);
+        putFloat(player.store.accelerationY[player.id]);
+        putFloat(player.velocityY());
+        putFloat(player.scaleY());
+        putFloat(player.borderLeft());
+        putFloat(player.borderRight());
+        putFloat(player.borderUp());
+        putFloat(player.borderDown());
+    }
+
+    private void restorePlayer(Player player) {
+        restoreObject(player);
+        player.ACCELERATION_VALUE = getFloat();
+        player.store.accelerationY[player.id] = getFloat();
+        player.setVelocityY(getFloat());
+        player.setScaleY(getFloat());
+        player.setBorderLeft(getFloat());
+        player.setBorderRight(getFloat());
+        player.setBorderUp(getFloat());
+        player.setBorderDown(getFloat());
+    }
+
+    private void putInt(int value) {
+        data[position++] = value;
+    }
+
+    private void putBoolean(boolean value) {
+        data[position++] = value ? 1 : 0;
+    }
+
+    private void putFloat(float value) {
+        data[position++] = Float.floatToRawIntBits(value);
+    }
+
+    private void putLong(long value) {
+        data[position++] = (int) (value >>> 32);
+        data[position++] = (int) value;
+    }
+
+    private int getInt() {
+        return data[position++];
+    }
+
+    private boolean getBoolean() {
+        return data[position++] != 0;
+    }
+
+    private float getFloat() {
+        return Float.intBitsToFloat(data[position++]);
+    }
+
+    private long getLong() {
+        long high = data[position++];
+        return high << 32 | data[position++] & 0xffffffffL;
+    }
+}
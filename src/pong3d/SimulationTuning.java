@@ -0,0 +1,30 @@
+package pong3d;
+
+// The constants the gameplay balance hangs on, per simulation, so matches
+// with different values can run side by side (see TournamentRunner).
+// DEFAULT is the game as it ships.
+class SimulationTuning {
+    static final SimulationTuning DEFAULT = new SimulationTuning(0.012f, 0.75f, 273f, 9975);
+
+    // paddle acceleration per tick while a key is held
+    final float acceleration;
+    // share of the paddle velocity kept from one tick to the next
+    final float damping;
+    // ball spin per unit of paddle velocity at a hit, the spin also bends the bounce
+    final float spin;
+    // a power-up spawns on a tick when a random number below 10000 is above this
+    final int powerUpSpawnThreshold;
+
+    public SimulationTuning(float acceleration, float damping, float spin, int powerUpSpawnThreshold) {
+        this.acceleration = acceleration;
+        this.damping = damping;
+        this.spin = spin;
+        this.powerUpSpawnThreshold = powerUpSpawnThreshold;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("acceleration %.4f damping %.2f spin %.0f spawn %d", acceleration, damping, spin,
+                powerUpSpawnThreshold);
+    }
+}
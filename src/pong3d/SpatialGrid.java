@@ -0,0 +1,290 @@
+package pong3d;
+
+import java.util.Arrays;
+
+// Uniform grid broad phase over a fixed area, e.g. the court. Every entity
+// has an AABB and is listed in each cell the AABB touches; positions outside
+// the area are clamped to the border cells. update() only stores the AABB
+// and its cell range, the cells are built in forEachPair().
+//
+// forEachPair() counting sorts the entries of the cells that hold two or
+// more into one flat array, a cell with one entry has no pairs. cellStart
+// holds where each such cell's entries begin, and every entry is a record
+// of ENTRY ints with the entity's id, category, mask and AABB (as float
+// bits). Building an entry touches one half cache line instead of one
+// line per field, and the pair scan reads the entries of a cell one after
+// the other instead of following ids into the per entity arrays, so the
+// cost per entity stays about flat as the grid outgrows the caches. Only
+// the cells the entities touch are visited, so a few entities on a large
+// grid cost as little as on a small one, and the counts are reused while
+// no entity moves into other cells. It reports every pair whose AABBs
+// overlap and whose categories match the other's mask exactly once,
+// without allocating once the entry arrays have grown. The narrow phase (sphere or exact shape
+// tests) is left to the visitor.
+class SpatialGrid {
+    interface PairVisitor {
+        void pair(int a, int b);
+    }
+
+    private final float originX, originY;
+    private final float inverseCellSize;
+    private final int columns, rows;
+
+    private int size;
+    private float[] minX, minY, maxX, maxY;
+    private int[] category, mask;
+    private boolean[] enabled;
+    // covered cell range, inclusive, only valid while enabled
+    private int[] cellMinX, cellMinY, cellMaxX, cellMaxY;
+
+    // the fields of an entry record
+    private static final int ENTRY = 8;
+    private static final int ID = 0, CATEGORY = 1, MASK = 2, MIN_X = 3, MIN_Y = 4, MAX_X = 5, MAX_Y = 6;
+
+    // built by forEachPair(): the entries each touched cell holds, and for
+    // the crowded cells, those touched at least twice, where their entries
+    // begin and then where they end
+    private final int[] cellEntries;
+    private final int[] cellStart;
+    // the cells touched in the last count and the crowded ones, in the order found
+    private final int[] touched;
+    private final int[] crowded;
+    private int touchedCount, crowdedCount;
+    // whether an entity covers other cells than at the last count, else the
+    // counts are kept and only the entry records are written again
+    private boolean cellsChanged;
+    // the record after those of the crowded cells
+    private int spare;
+    // the entry records of the crowded cells, cell by cell, ids ascending within a cell
+    private int[] entries = new int[0];
+
+    public SpatialGrid(float minX, float minY, float maxX, float maxY, float cellSize, int capacity) {
+        originX = minX;
+        originY = minY;
+        inverseCellSize = 1.0f / cellSize;
+        columns = Math.max(1, (int) Math.ceil((maxX - minX) / cellSize));
+        rows = Math.max(1, (int) Math.ceil((maxY - minY) / cellSize));
+        cellEntries = new int[columns * rows];
+        cellStart = new int[columns * rows];
+        // one more for the write past the end when every cell is counted
+        touched = new int[columns * rows + 1];
+        crowded = new int[columns * rows + 1];
+        allocate(Math.max(1, capacity));
+        entries = new int[Math.max(1, capacity) * ENTRY];
+    }
+
+    private void allocate(int capacity) {
+        minX = minX == null ? new float[capacity] : Arrays.copyOf(minX, capacity);
+        minY = minY == null ? new float[capacity] : Arrays.copyOf(minY, capacity);
+        maxX = maxX == null ? new float[capacity] : Arrays.copyOf(maxX, capacity);
+        maxY = maxY == null ? new float[capacity] : Arrays.copyOf(maxY, capacity);
+        category = category == null ? new int[capacity] : Arrays.copyOf(category, capacity);
+        mask = mask == null ? new int[capacity] : Arrays.copyOf(mask, capacity);
+        enabled = enabled == null ? new boolean[capacity] : Arrays.copyOf(enabled, capacity);
+        cellMinX = cellMinX == null ? new int[capacity] : Arrays.copyOf(cellMinX, capacity);
+        cellMinY = cellMinY == null ? new int[capacity] : Arrays.copyOf(cellMinY, capacity);
+        cellMaxX = cellMaxX == null ? new int[capacity] : Arrays.copyOf(cellMaxX, capacity);
+        cellMaxY = cellMaxY == null ? new int[capacity] : Arrays.copyOf(cellMaxY, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int cellCount() {
+        return columns * rows;
+    }
+
+    // returns the id of a new, disabled entity; a pair is reported if
+    // either entity's category bits are in the other one's mask
+    public int add(int category, int mask) {
+        if (size == minX.length) {
+            allocate(size * 2);
+        }
+        int id = size++;
+        this.category[id] = category;
+        this.mask[id] = mask;
+        enabled[id] = false;
+        return id;
+    }
+
+    // a disabled entity is left out of the grid until the next update()
+    public void disable(int id) {
+        cellsChanged |= enabled[id];
+        enabled[id] = false;
+    }
+
+    public boolean isEnabled(int id) {
+        return enabled[id];
+    }
+
+    public void updateCentered(int id, float x, float y, float halfX, float halfY) {
+        update(id, x - halfX, y - halfY, x + halfX, y + halfY);
+    }
+
+    // sets the entity's AABB and enables it
+    public void update(int id, float minX, float minY, float maxX, float maxY) {
+        this.minX[id] = minX;
+        this.minY[id] = minY;
+        this.maxX[id] = maxX;
+        this.maxY[id] = maxY;
+        int x0 = column(minX), y0 = row(minY), x1 = column(maxX), y1 = row(maxY);
+        if (enabled[id] && x0 == cellMinX[id] && y0 == cellMinY[id] && x1 == cellMaxX[id] && y1 == cellMaxY[id]) {
+            return;
+        }
+        cellsChanged = true;
+        cellMinX[id] = x0;
+        cellMinY[id] = y0;
+        cellMaxX[id] = x1;
+        cellMaxY[id] = y1;
+        enabled[id] = true;
+    }
+
+    private int column(float x) {
+        // truncating instead of flooring is fine, negative values are clamped to 0 anyway
+        int column = (int) ((x - originX) * inverseCellSize);
+        return Math.min(Math.max(column, 0), columns - 1);
+    }
+
+    private int row(float y) {
+        int row = (int) ((y - originY) * inverseCellSize);
+        return Math.min(Math.max(row, 0), rows - 1);
+    }
+
+    public boolean overlaps(int a, int b) {
+        return minX[a] <= maxX[b] && minX[b] <= maxX[a] && minY[a] <= maxY[b] && minY[b] <= maxY[a];
+    }
+
+    // counting sort of the enabled entities' crowded cells into the entry records
+    private void build() {
+        if (cellsChanged) {
+            countCells();
+            cellsChanged = false;
+        } else {
+            // same cells as last time, back from their ends to their beginnings
+            for (int i = 0; i < crowdedCount; i++) {
+                cellStart[crowded[i]] -= cellEntries[crowded[i]];
+            }
+        }
+        if (crowdedCount == 0) {
+            return;
+        }
+
+        // start[cell] is the next free entry of a crowded cell, and its end afterwards
+        int[] cellEntries = this.cellEntries;
+        int[] start = cellStart;
+        int[] entries = this.entries;
+        int spare = this.spare;
+        for (int id = 0; id < size; id++) {
+            if (!enabled[id]) {
+                continue;
+            }
+            int category = this.category[id], mask = this.mask[id];
+            int minX = Float.floatToRawIntBits(this.minX[id]), minY = Float.floatToRawIntBits(this.minY[id]);
+            int maxX = Float.floatToRawIntBits(this.maxX[id]), maxY = Float.floatToRawIntBits(this.maxY[id]);
+            for (int y = cellMinY[id]; y <= cellMaxY[id]; y++) {
+                int rowStart = y * columns;
+                for (int x = cellMinX[id]; x <= cellMaxX[id]; x++) {
+                    int cell = rowStart + x;
+                    // a cell with one entry writes into the spare record behind the others
+                    int next = start[cell];
+                    boolean crowdedCell = cellEntries[cell] >= 2;
+                    int entry = (crowdedCell ? next : spare) * ENTRY;
+                    start[cell] = next + (crowdedCell ? 1 : 0);
+                    entries[entry + ID] = id;
+                    entries[entry + CATEGORY] = category;
+                    entries[entry + MASK] = mask;
+                    entries[entry + MIN_X] = minX;
+                    entries[entry + MIN_Y] = minY;
+                    entries[entry + MAX_X] = maxX;
+                    entries[entry + MAX_Y] = maxY;
+                }
+            }
+        }
+    }
+
+    // counts the entries of the touched cells and where the crowded ones begin
+    private void countCells() {
+        int[] cellEntries = this.cellEntries;
+        int[] touched = this.touched, crowded = this.crowded;
+        for (int i = 0; i < touchedCount; i++) {
+            cellEntries[touched[i]] = 0;
+        }
+        // a cell is touched once per build at most, the lists never grow
+        int touchedCount = 0;
+        int crowdedCount = 0;
+        int count = 0;
+        for (int id = 0; id < size; id++) {
+            if (!enabled[id]) {
+                continue;
+            }
+            for (int y = cellMinY[id]; y <= cellMaxY[id]; y++) {
+                int rowStart = y * columns;
+                for (int x = cellMinX[id]; x <= cellMaxX[id]; x++) {
+                    int cell = rowStart + x;
+                    int entriesOfCell = ++cellEntries[cell];
+                    // written every time and kept only when counted, without branches
+                    // that a dense grid would mispredict
+                    touched[touchedCount] = cell;
+                    touchedCount += entriesOfCell == 1 ? 1 : 0;
+                    crowded[crowdedCount] = cell;
+                    crowdedCount += entriesOfCell == 2 ? 1 : 0;
+                    count += (entriesOfCell >= 2 ? 1 : 0) + (entriesOfCell == 2 ? 1 : 0);
+                }
+            }
+        }
+        this.touchedCount = touchedCount;
+        this.crowdedCount = crowdedCount;
+        spare = count;
+        if ((count + 1) * ENTRY > entries.length) {
+            // the records are all written again, nothing has to be copied over
+            entries = new int[Math.max((count + 1) * ENTRY, entries.length * 2)];
+        }
+        int next = 0;
+        for (int i = 0; i < crowdedCount; i++) {
+            int cell = crowded[i];
+            cellStart[cell] = next;
+            next += cellEntries[cell];
+        }
+    }
+
+    // returns the number of reported pairs
+    public int forEachPair(PairVisitor visitor) {
+        build();
+        int[] entries = this.entries;
+        int pairs = 0;
+        for (int k = 0; k < crowdedCount; k++) {
+            int cell = crowded[k];
+            int cellEnd = cellStart[cell];
+            int begin = cellEnd - cellEntries[cell];
+            int column = cell % columns;
+            int row = cell / columns;
+            for (int i = begin * ENTRY; i < cellEnd * ENTRY; i += ENTRY) {
+                int categoryA = entries[i + CATEGORY], maskA = entries[i + MASK];
+                float minXa = Float.intBitsToFloat(entries[i + MIN_X]);
+                float minYa = Float.intBitsToFloat(entries[i + MIN_Y]);
+                float maxXa = Float.intBitsToFloat(entries[i + MAX_X]);
+                float maxYa = Float.intBitsToFloat(entries[i + MAX_Y]);
+                for (int j = i + ENTRY; j < cellEnd * ENTRY; j += ENTRY) {
+                    if ((categoryA & entries[j + MASK]) == 0 && (entries[j + CATEGORY] & maskA) == 0) {
+                        continue;
+                    }
+                    float minXb = Float.intBitsToFloat(entries[j + MIN_X]);
+                    float minYb = Float.intBitsToFloat(entries[j + MIN_Y]);
+                    if (minXa > Float.intBitsToFloat(entries[j + MAX_X]) || minXb > maxXa
+                            || minYa > Float.intBitsToFloat(entries[j + MAX_Y]) || minYb > maxYa) {
+                        continue;
+                    }
+                    // a pair sharing several cells is reported only in the cell that holds
+                    // the lower left corner of the AABBs' intersection
+                    if (column(Math.max(minXa, minXb)) != column || row(Math.max(minYa, minYb)) != row) {
+                        continue;
+                    }
+                    pairs++;
+                    visitor.pair(entries[i + ID], entries[j + ID]);
+                }
+            }
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,85 @@
+package pong3d;
+
+import java.util.Random;
+
+// Compares SpatialGrid.forEachPair() with testing every pair of entities:
+// entities of mixed sizes, some outside the area, some disabled, moving for
+// a number of ticks, every other tick standing still so the grid reuses its
+// cell counts. Every overlapping pair with matching categories must
+// be reported exactly once and nothing else. Exits with status 1 on the
+// first mismatch.
+//
+// usage: java -cp game/target/classes pong3d.SpatialGridCheck [entities] [ticks] [seed]
+class SpatialGridCheck {
+    public static void main(String[] args) {
+        int entities = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        Random random = new Random(seed);
+        SpatialGrid grid = new SpatialGrid(-2, -1.25f, 2, 1.25f, 0.1f, 16);
+        float[] x = new float[entities], y = new float[entities];
+        float[] halfX = new float[entities], halfY = new float[entities];
+        float[] velocityX = new float[entities], velocityY = new float[entities];
+        int[] category = new int[entities], mask = new int[entities];
+        for (int i = 0; i < entities; i++) {
+            category[i] = 1 << random.nextInt(3);
+            mask[i] = random.nextInt(8);
+            grid.add(category[i], mask[i]);
+            x[i] = random.nextFloat() * 4.4f - 2.2f;
+            y[i] = random.nextFloat() * 2.9f - 1.45f;
+            // mostly small, some spanning many cells
+            float size = random.nextInt(20) == 0 ? 0.4f : 0.04f;
+            halfX[i] = random.nextFloat() * size;
+            halfY[i] = random.nextFloat() * size;
+            velocityX[i] = random.nextFloat() * 0.02f - 0.01f;
+            velocityY[i] = random.nextFloat() * 0.02f - 0.01f;
+        }
+
+        int[][] reported = new int[entities][entities];
+        long pairs = 0;
+        for (int tick = 0; tick < ticks; tick++) {
+            boolean still = tick % 2 == 1;
+            for (int i = 0; i < entities; i++) {
+                if (still) {
+                    if (grid.isEnabled(i)) {
+                        grid.updateCentered(i, x[i], y[i], halfX[i], halfY[i]);
+                    } else {
+                        grid.disable(i);
+                    }
+                    continue;
+                }
+                x[i] += velocityX[i];
+                y[i] += velocityY[i];
+                if (random.nextInt(10) == 0) {
+                    grid.disable(i);
+                } else {
+                    grid.updateCentered(i, x[i], y[i], halfX[i], halfY[i]);
+                }
+            }
+            int[] count = {0};
+            int stamp = tick + 1;
+            grid.forEachPair((a, b) -> {
+                if (a >= b || reported[a][b] == stamp) {
+                    throw new IllegalStateException("pair " + a + ", " + b + " reported twice or out of order");
+                }
+                reported[a][b] = stamp;
+                count[0]++;
+            });
+            for (int a = 0; a < entities; a++) {
+                for (int b = a + 1; b < entities; b++) {
+                    boolean expected = grid.isEnabled(a) && grid.isEnabled(b)
+                            && ((category[a] & mask[b]) != 0 || (category[b] & mask[a]) != 0)
+                            && grid.overlaps(a, b);
+                    if (expected != (reported[a][b] == stamp)) {
+                        System.out.printf("tick %d: pair %d, %d %s%n", tick, a, b,
+                                expected ? "missing" : "reported but does not overlap");
+                        System.exit(1);
+                    }
+                }
+            }
+            pairs += count[0];
+        }
+        System.out.printf("%d entities, %d ticks, %d pairs match testing every pair: OK%n", entities, ticks, pairs);
+    }
+}
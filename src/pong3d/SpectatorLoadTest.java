@@ -0,0 +1,137 @@
+package pong3d;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+// Connects many spectators to a SpectatorServer and reports what they get:
+// frames per second, ticks dropped by backpressure and the latency from
+// publish to decode. Without an address it starts the server and a match in
+// this process; each connection takes a file descriptor on both ends, so
+// for more spectators than half the descriptor limit run the server in a
+// process of its own (SpectatorServer.main).
+//
+// usage: java -cp game/target/classes pong3d.SpectatorLoadTest [spectators] [seconds] [host:port]
+class SpectatorLoadTest {
+    static class Spectator {
+        final SocketChannel channel;
+        final ByteBuffer buffer = ByteBuffer.allocate(4 * SpectatorServer.FRAME_SIZE);
+        int lastTick = -1;
+
+        Spectator(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private static long frames;
+    private static long droppedTicks;
+    private static long bytes;
+    private static final LatencyHistogram latency = new LatencyHistogram();
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 10.0;
+
+        SpectatorServer server = null;
+        Thread matchThread = null;
+        InetSocketAddress address;
+        double[] publishNanos = new double[1];
+        if (args.length > 2) {
+            int colon = args[2].lastIndexOf(':');
+            address = new InetSocketAddress(args[2].substring(0, colon), Integer.parseInt(args[2].substring(colon + 1)));
+        } else {
+            server = new SpectatorServer(0);
+            address = new InetSocketAddress("127.0.0.1", server.port());
+            new Thread(server, "spectator-io").start();
+        }
+
+        Selector selector = Selector.open();
+        for (int i = 0; i < count; i++) {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, new Spectator(channel));
+        }
+        System.out.printf("%d spectators connected%n", count);
+
+        long start = System.nanoTime();
+        long end = start + (long) (seconds * 1e9);
+        if (server != null) {
+            SpectatorServer matchServer = server;
+            long matchEnd = end;
+            matchThread = new Thread(() -> publishNanos[0] = SpectatorServer.runMatch(matchServer, matchEnd), "match");
+            matchThread.start();
+        }
+
+        long nextReport = start + 1_000_000_000L;
+        long lastFrames = 0, lastDropped = 0, lastBytes = 0;
+        while (System.nanoTime() < end) {
+            selector.select(100);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                read((Spectator) key.attachment());
+            }
+            long now = System.nanoTime();
+            if (now >= nextReport) {
+                System.out.printf("%4.0fs %9d frames/s %7.1f per spectator %9d dropped/s %8.2f MB/s  latency %s%n",
+                        (now - start) / 1e9, frames - lastFrames, (double) (frames - lastFrames) / count,
+                        droppedTicks - lastDropped, (bytes - lastBytes) / 1e6, latency.summary());
+                latency.reset();
+                lastFrames = frames;
+                lastDropped = droppedTicks;
+                lastBytes = bytes;
+                nextReport += 1_000_000_000L;
+            }
+        }
+
+        if (server != null) {
+            matchThread.join();
+            server.stop();
+            System.out.printf("server: %d subscribers, publish() %.0f ns per tick, fan-out per tick %s%n",
+                    server.subscriberCount, publishNanos[0], server.fanOutTime.summary());
+            System.out.printf("server: %d frames sent, %d ticks dropped for slow spectators, %d pooled frames, "
+                    + "%d ticks not published%n", server.framesSent, server.framesDropped, server.frames(),
+                    server.ticksNotPublished);
+        }
+        selector.close();
+    }
+
+    private static void read(Spectator spectator) {
+        ByteBuffer buffer = spectator.buffer;
+        int read;
+        try {
+            read = spectator.channel.read(buffer);
+        } catch (IOException e) {
+            read = -1;
+        }
+        if (read < 0) {
+            try {
+                spectator.channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+        bytes += read;
+        buffer.flip();
+        long now = System.nanoTime();
+        while (buffer.remaining() >= SpectatorServer.FRAME_SIZE) {
+            int length = buffer.getInt();
+            int tick = buffer.getInt();
+            long published = buffer.getLong();
+            buffer.position(buffer.position() + length - 12);
+            if (spectator.lastTick >= 0) {
+                droppedTicks += tick - spectator.lastTick - 1;
+            }
+            spectator.lastTick = tick;
+            frames++;
+            latency.record(now - published);
+        }
+        buffer.compact();
+    }
+}
@@ -0,0 +1,325 @@
+package pong3d;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Streams one match to any number of spectators over TCP. The simulation
+// thread encodes each tick once into a frame and hands it over; one IO
+// thread fans it out through a selector, giving every spectator a
+// read-only view of the same buffer, so the bytes are never copied per
+// connection.
+//
+// Frames are direct buffers from a pool, the simulation thread takes a
+// free one and the IO thread gives it back once neither the fan-out nor
+// any spectator still writing it points at it. The pool only grows while
+// slow spectators hold on to old frames, up to MAX_FRAMES; beyond that a
+// tick is not published.
+//
+// A spectator whose socket is full keeps writing the frame it started, a
+// TCP stream can not skip half a frame, then goes on with the newest one.
+// The ticks in between are dropped for it and nobody else is slowed down.
+//
+// frame: int length (of the rest), int tick, long publish System.nanoTime(),
+// int for every NetState field
+//
+// usage: java -cp game/target/classes pong3d.SpectatorServer [port]
+class SpectatorServer implements Runnable {
+    static final int DEFAULT_PORT = 7778;
+    static final int FRAME_SIZE = 4 + 4 + 8 + NetState.FIELDS * 4;
+    static final int INITIAL_FRAMES = 16;
+    static final int MAX_FRAMES = 4096;
+
+    static class Frame {
+        final ByteBuffer data = ByteBuffer.allocateDirect(FRAME_SIZE);
+        int tick;
+        // IO thread only: the fan-out's and the writing subscribers' references
+        int refs;
+    }
+
+    static class Subscriber {
+        final SocketChannel channel;
+        SelectionKey key;
+        // frame being written and its view, null when idle
+        Frame source;
+        ByteBuffer frame;
+        int lastTick = -1;
+        long frames;
+        long dropped;
+
+        Subscriber(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ArrayList<Subscriber> subscribers = new ArrayList<>();
+    private volatile boolean running;
+
+    // newest frame from the simulation thread until the IO thread takes it,
+    // and the last one fanned out
+    private final AtomicReference<Frame> latest = new AtomicReference<>();
+    private Frame fannedOut;
+    private final ArrayBlockingQueue<Frame> free = new ArrayBlockingQueue<>(MAX_FRAMES);
+    // simulation thread only
+    private final int[] state = new int[NetState.FIELDS];
+    private int frames;
+    volatile long ticksNotPublished;
+    private final ByteBuffer discard = ByteBuffer.allocate(256);
+
+    // statistics, written by the IO thread
+    volatile int subscriberCount;
+    volatile long framesSent;
+    volatile long framesDropped;
+    volatile long bytesSent;
+    final LatencyHistogram fanOutTime = new LatencyHistogram();
+
+    public SpectatorServer(int port) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(port), 4096);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        for (; frames < INITIAL_FRAMES; frames++) {
+            free.add(new Frame());
+        }
+    }
+
+    public int port() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    // Called by the simulation thread after each tick. A pooled frame, as
+    // slow spectators may still be writing older ones; direct, so the socket
+    // writes read it in place instead of through a temporary copy.
+    public void publish(Simulation simulation, int tick) {
+        Frame frame = free.poll();
+        if (frame == null) {
+            if (frames == MAX_FRAMES) {
+                ticksNotPublished++;
+                return;
+            }
+            frame = new Frame();
+            frames++;
+        }
+        NetState.capture(simulation, state);
+        ByteBuffer data = frame.data;
+        data.clear();
+        data.putInt(FRAME_SIZE - 4);
+        data.putInt(tick);
+        data.putLong(System.nanoTime());
+        for (int field : state) {
+            data.putInt(field);
+        }
+        data.flip();
+        frame.tick = tick;
+        Frame unseen = latest.getAndSet(frame);
+        if (unseen != null) {
+            // the IO thread never took it
+            free.add(unseen);
+        }
+        selector.wakeup();
+    }
+
+    // frames the pool has grown to
+    public int frames() {
+        return frames;
+    }
+
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        running = true;
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    if (key.isReadable()) {
+                        read((Subscriber) key.attachment());
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        write((Subscriber) key.attachment());
+                    }
+                }
+                Frame frame = latest.getAndSet(null);
+                if (frame != null) {
+                    release(fannedOut);
+                    fannedOut = frame;
+                    frame.refs++;
+                    long start = System.nanoTime();
+                    fanOut(frame);
+                    fanOutTime.record(System.nanoTime() - start);
+                }
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.channel.close();
+            }
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void accept() throws IOException {
+        for (SocketChannel channel = serverChannel.accept(); channel != null; channel = serverChannel.accept()) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Subscriber subscriber = new Subscriber(channel);
+            // spectators send nothing, reading only notices them leaving
+            subscriber.key = channel.register(selector, SelectionKey.OP_READ, subscriber);
+            subscribers.add(subscriber);
+        }
+        subscriberCount = subscribers.size();
+    }
+
+    private void fanOut(Frame frame) {
+        long sent = 0;
+        long dropped = 0;
+        for (int i = subscribers.size() - 1; i >= 0; i--) {
+            Subscriber subscriber = subscribers.get(i);
+            if (subscriber.frame != null) {
+                // still busy with an older frame, it gets the newest one once done
+                continue;
+            }
+            dropped += start(subscriber, frame);
+            if (!send(subscriber)) {
+                continue;
+            }
+            if (subscriber.frame == null) {
+                sent++;
+            }
+        }
+        framesSent += sent;
+        framesDropped += dropped;
+    }
+
+    // returns the ticks the subscriber skips to get to this frame
+    private static int start(Subscriber subscriber, Frame frame) {
+        int tick = frame.tick;
+        int skipped = subscriber.lastTick < 0 ? 0 : Math.max(0, tick - subscriber.lastTick - 1);
+        subscriber.dropped += skipped;
+        subscriber.lastTick = tick;
+        subscriber.source = frame;
+        subscriber.frame = frame.data.asReadOnlyBuffer();
+        frame.refs++;
+        return skipped;
+    }
+
+    // back to the pool once nothing points at it any more
+    private void release(Frame frame) {
+        if (frame != null && --frame.refs == 0) {
+            free.add(frame);
+        }
+    }
+
+    // writes what the socket takes; returns false if the subscriber was closed
+    private boolean send(Subscriber subscriber) {
+        try {
+            bytesSent += subscriber.channel.write(subscriber.frame);
+        } catch (IOException e) {
+            close(subscriber);
+            return false;
+        }
+        if (subscriber.frame.hasRemaining()) {
+            subscriber.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } else {
+            finish(subscriber);
+            subscriber.frames++;
+        }
+        return true;
+    }
+
+    private void finish(Subscriber subscriber) {
+        release(subscriber.source);
+        subscriber.source = null;
+        subscriber.frame = null;
+    }
+
+    // the socket has room again: finish the frame, then catch up to the newest
+    private void write(Subscriber subscriber) {
+        if (!send(subscriber) || subscriber.frame != null) {
+            return;
+        }
+        framesSent++;
+        Frame frame = fannedOut;
+        if (frame != null && frame.tick > subscriber.lastTick) {
+            framesDropped += start(subscriber, frame);
+            if (send(subscriber) && subscriber.frame == null) {
+                framesSent++;
+            }
+        }
+        if (subscriber.frame == null && subscriber.key.isValid()) {
+            subscriber.key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void read(Subscriber subscriber) {
+        try {
+            discard.clear();
+            if (subscriber.channel.read(discard) < 0) {
+                close(subscriber);
+            }
+        } catch (IOException e) {
+            close(subscriber);
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        try {
+            subscriber.channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        finish(subscriber);
+        subscribers.remove(subscriber);
+        subscriberCount = subscribers.size();
+    }
+
+    // steps a match with two paddles following the ball at the tick rate and streams it
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        SpectatorServer server = new SpectatorServer(port);
+        new Thread(server, "spectator-io").start();
+        System.out.println("Streaming on TCP port " + server.port());
+        runMatch(server, Long.MAX_VALUE);
+    }
+
+    // returns the average nanoseconds publish() took
+    static double runMatch(SpectatorServer server, long untilNanos) {
+        Simulation simulation = new Simulation();
+        long publishNanos = 0;
+        int tick = 0;
+        TickPacer pacer = new TickPacer(Simulation.TICK_NANOS);
+        while (pacer.awaitTick() < untilNanos) {
+            HeadlessRunner.run(simulation, 1);
+            long start = System.nanoTime();
+            server.publish(simulation, ++tick);
+            publishNanos += System.nanoTime() - start;
+        }
+        return (double) publishNanos / Math.max(1, tick);
+    }
+}
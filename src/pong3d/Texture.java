@@ -1,3 +1,5 @@
+package pong3d;
+
 // This code example is created for educational purpose
 // by Thorsten Thormaehlen (contact: www.thormae.de).
 // It is distributed without any warranty.
@@ -0,0 +1,43 @@
+package pong3d;
+
+import java.util.concurrent.locks.LockSupport;
+
+// Fixed rate loop timing for the thread that calls awaitTick(): parks until
+// the next tick is due and keeps the ticks on their schedule, so a slow tick
+// is made up by a shorter wait instead of shifting every tick after it. The
+// schedule starts with the first call.
+class TickPacer {
+    // after a stall this long go on from now instead of running the missed ticks in a burst
+    static final long MAX_BEHIND_NANOS = 250_000_000L;
+
+    private final long periodNanos;
+    private long nextTick;
+    private boolean started;
+    // ticks that could not start when they were due, readable from any thread
+    volatile long lateTicks;
+
+    public TickPacer(long periodNanos) {
+        this.periodNanos = periodNanos;
+    }
+
+    // returns the time the tick was due at
+    public long awaitTick() {
+        long now = System.nanoTime();
+        if (!started) {
+            started = true;
+            nextTick = now;
+        } else if (now > nextTick) {
+            lateTicks++;
+            if (now - nextTick > MAX_BEHIND_NANOS) {
+                nextTick = now;
+            }
+        }
+        while (now < nextTick) {
+            LockSupport.parkNanos(nextTick - now);
+            now = System.nanoTime();
+        }
+        long scheduled = nextTick;
+        nextTick += periodNanos;
+        return scheduled;
+    }
+}
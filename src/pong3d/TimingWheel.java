@@ -0,0 +1,174 @@
+package pong3d;
+
+// Hierarchical timing wheel keyed on simulation ticks. Tasks run inside
+// advance() on the thread that steps the simulation, tasks due on the same
+// tick run in the order they were scheduled (or cascaded down).
+//
+// Level l has SLOTS slots of SLOTS^l ticks each, a task lives on the lowest
+// level whose range covers its delay. When a level wraps, the next slot of
+// the level above is cascaded down, so every task is moved at most LEVELS
+// times. Delays beyond the top level wait in an overflow list.
+class TimingWheel {
+    static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int LEVELS = 4;
+    static final long RANGE = 1L << (SLOT_BITS * LEVELS);
+
+    static class Timeout {
+        long deadline;
+        Runnable task;
+        Timeout prev, next;
+
+        public boolean isPending() {
+            return next != null;
+        }
+    }
+
+    // circular lists with a sentinel per slot, the last one is the overflow list
+    private final Timeout[] slots = new Timeout[LEVELS * SLOTS + 1];
+    private final Timeout expired = new Timeout();
+    private final Timeout cascading = new Timeout();
+    private long tick;
+    private int size;
+
+    public TimingWheel() {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = sentinel(new Timeout());
+        }
+        sentinel(expired);
+        sentinel(cascading);
+    }
+
+    private static Timeout sentinel(Timeout timeout) {
+        timeout.prev = timeout;
+        timeout.next = timeout;
+        return timeout;
+    }
+
+    public long tick() {
+        return tick;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // runs task on the advance() delayTicks from now, at least on the next one
+    public Timeout schedule(long delayTicks, Runnable task) {
+        Timeout timeout = new Timeout();
+        timeout.task = task;
+        schedule(timeout, delayTicks);
+        return timeout;
+    }
+
+    // same for a timeout that is not pending, so owners can reuse theirs
+    public void schedule(Timeout timeout, long delayTicks) {
+        timeout.deadline = tick + Math.max(1, delayTicks);
+        insert(timeout);
+        size++;
+    }
+
+    // returns false if the task already ran or was cancelled
+    public boolean cancel(Timeout timeout) {
+        if (!timeout.isPending()) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    // moves to the next tick and runs the tasks due on it
+    public void advance() {
+        tick++;
+        for (int level = 1; level < LEVELS; level++) {
+            if ((tick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                break;
+            }
+            cascade(slots[level * SLOTS + slot(tick, level)]);
+        }
+        if ((tick & (RANGE - 1)) == 0) {
+            cascade(slots[LEVELS * SLOTS]);
+        }
+
+        // detach the slot first, tasks may schedule new tasks while it runs
+        Timeout head = slots[slot(tick, 0)];
+        if (head.next == head) {
+            return;
+        }
+        moveAll(head, expired);
+        while (expired.next != expired) {
+            Timeout timeout = expired.next;
+            unlink(timeout);
+            size--;
+            timeout.task.run();
+        }
+    }
+
+    // removes all pending tasks without running them
+    public void clear() {
+        for (Timeout head : slots) {
+            while (head.next != head) {
+                unlink(head.next);
+            }
+        }
+        while (expired.next != expired) {
+            unlink(expired.next);
+        }
+        size = 0;
+    }
+
+    // removes all pending tasks and moves to the given tick, e.g. to restore a saved state
+    public void reset(long tick) {
+        clear();
+        this.tick = tick;
+    }
+
+    private static int slot(long tick, int level) {
+        return (int) (tick >>> (SLOT_BITS * level)) & (SLOTS - 1);
+    }
+
+    private void insert(Timeout timeout) {
+        long delta = timeout.deadline - tick;
+        Timeout head = slots[LEVELS * SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                head = slots[level * SLOTS + slot(timeout.deadline, level)];
+                break;
+            }
+        }
+        timeout.prev = head.prev;
+        timeout.next = head;
+        head.prev.next = timeout;
+        head.prev = timeout;
+    }
+
+    private void cascade(Timeout head) {
+        if (head.next == head) {
+            return;
+        }
+        moveAll(head, cascading);
+        while (cascading.next != cascading) {
+            Timeout timeout = cascading.next;
+            unlink(timeout);
+            insert(timeout);
+        }
+    }
+
+    // appends all entries of the list from to the empty list to
+    private static void moveAll(Timeout from, Timeout to) {
+        to.next = from.next;
+        to.prev = from.prev;
+        to.next.prev = to;
+        to.prev.next = to;
+        from.next = from;
+        from.prev = from;
+    }
+
+    private static void unlink(Timeout timeout) {
+        timeout.prev.next = timeout.next;
+        timeout.next.prev = timeout.prev;
+        timeout.prev = null;
+        timeout.next = null;
+    }
+}
@@ -0,0 +1,162 @@
+package pong3d;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TreeMap;
+
+// Checks TimingWheel against a plain reference model, a map from deadline
+// to the tasks due then. Every round starts the wheel just before a level or
+// overflow boundary, schedules timeouts with random delays from one tick to
+// past the top level, cancels some, lets some tasks schedule new ones while
+// they run, and then advances until the wheel is empty. After every advance
+// the tasks that ran must be exactly the ones the model has due on that
+// tick, and the sizes must agree. Exits with status 1 on the first mismatch.
+//
+// usage: java -cp game/target/classes pong3d.TimingWheelCheck [rounds] [schedules per round] [seed]
+class TimingWheelCheck {
+    private final TimingWheel wheel = new TimingWheel();
+    private final SimulationRandom random;
+    // the reference model: pending ids by deadline, and each id's deadline
+    private final TreeMap<Long, ArrayList<Integer>> due = new TreeMap<>();
+    private final HashMap<Integer, Long> deadlines = new HashMap<>();
+    private final ArrayList<TimingWheel.Timeout> timeouts = new ArrayList<>();
+    // ids run by the current advance()
+    private final ArrayList<Integer> ran = new ArrayList<>();
+    private long scheduled;
+    private long cancelled;
+    private long advances;
+
+    TimingWheelCheck(long seed) {
+        random = new SimulationRandom(seed);
+    }
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int schedules = args.length > 1 ? Integer.parseInt(args[1]) : 7000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        TimingWheelCheck check = new TimingWheelCheck(seed);
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            String error = check.round(schedules);
+            if (error != null) {
+                System.out.printf("round %d: %s%n", round, error);
+                System.exit(1);
+            }
+        }
+        System.out.printf("%d rounds, %d scheduled, %d cancelled, %d advances in %.1f s: OK%n", rounds,
+                check.scheduled, check.cancelled, check.advances, (System.nanoTime() - start) / 1e9);
+    }
+
+    // null if the wheel agreed with the model all round
+    String round(int schedules) {
+        // just before a boundary of a random level, the overflow list included
+        int level = 1 + random.nextInt(TimingWheel.LEVELS);
+        long boundary = (1L + random.nextInt(4)) << (TimingWheel.SLOT_BITS * level);
+        wheel.reset(boundary - 1 - random.nextInt(TimingWheel.SLOTS));
+        timeouts.clear();
+
+        for (int i = 0; i < schedules; i++) {
+            schedule(delay());
+            if (random.nextInt(8) == 0) {
+                cancel();
+            }
+            if (random.nextInt(4) == 0) {
+                String error = advance();
+                if (error != null) {
+                    return error;
+                }
+            }
+        }
+        while (!deadlines.isEmpty()) {
+            String error = advance();
+            if (error != null) {
+                return error;
+            }
+        }
+        return wheel.size() == 0 ? null : "wheel still holds " + wheel.size() + " timeouts";
+    }
+
+    // mostly short delays like the game's, some for every level and beyond
+    private long delay() {
+        switch (random.nextInt(8)) {
+            case 0:
+                return random.nextInt(3) - 1;
+            case 1:
+                return TimingWheel.RANGE + random.nextInt(TimingWheel.SLOTS * TimingWheel.SLOTS);
+            case 2:
+            case 3:
+                long range = 1L << (TimingWheel.SLOT_BITS * (1 + random.nextInt(TimingWheel.LEVELS)));
+                return (random.nextLong() & Long.MAX_VALUE) % range;
+            default:
+                return 1 + random.nextInt(2 * TimingWheel.SLOTS);
+        }
+    }
+
+    private void schedule(long delay) {
+        int id = timeouts.size();
+        // some tasks schedule another one when they run, as an expiry may
+        Runnable task = random.nextInt(16) == 0
+                ? () -> {
+                    ran.add(id);
+                    schedule(delay());
+                }
+                : () -> ran.add(id);
+        timeouts.add(wheel.schedule(delay, task));
+        long deadline = wheel.tick() + Math.max(1, delay);
+        due.computeIfAbsent(deadline, d -> new ArrayList<>()).add(id);
+        deadlines.put(id, deadline);
+        scheduled++;
+    }
+
+    private void cancel() {
+        int id = random.nextInt(timeouts.size());
+        Long deadline = deadlines.remove(id);
+        boolean pending = deadline != null;
+        if (pending) {
+            ArrayList<Integer> ids = due.get(deadline);
+            ids.remove((Integer) id);
+            if (ids.isEmpty()) {
+                due.remove(deadline);
+            }
+            cancelled++;
+        }
+        if (wheel.cancel(timeouts.get(id)) != pending) {
+            throw new IllegalStateException("cancel of timeout " + id + " returned " + !pending);
+        }
+    }
+
+    private String advance() {
+        ran.clear();
+        wheel.advance();
+        advances++;
+        long tick = wheel.tick();
+        // most ticks of the long waits have nothing due
+        long next = due.isEmpty() ? Long.MAX_VALUE : due.firstKey();
+        if (ran.isEmpty() && next > tick) {
+            return null;
+        }
+        ArrayList<Integer> expected = next == tick ? due.get(tick) : null;
+        int expectedCount = expected == null ? 0 : expected.size();
+        if (ran.size() != expectedCount || expectedCount > 0 && !ran.containsAll(expected)) {
+            return String.format("tick %d ran %s, expected %s", tick, ran, expected);
+        }
+        if (expected != null) {
+            // a task run may have scheduled one for a later tick only
+            due.remove(tick);
+            for (int id : expected) {
+                deadlines.remove(id);
+                if (timeouts.get(id).isPending()) {
+                    return String.format("timeout %d still pending after it ran", id);
+                }
+            }
+        }
+        if (!due.isEmpty() && due.firstKey() <= tick) {
+            return String.format("tick %d skipped deadline %d", tick, due.firstKey());
+        }
+        if (wheel.size() != deadlines.size()) {
+            return String.format("tick %d wheel size %d, expected %d", tick, wheel.size(), deadlines.size());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,173 @@
+package pong3d;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Plays bot against bot matches headless on all cores, to tune the gameplay
+// constants by numbers instead of by eye. Match i gets its own seed and
+// parameter set i % SETS.length, a sweep of each SimulationTuning constant
+// around its default. Results go straight into per-set counters and
+// histograms shared by all workers, no per-match objects are kept.
+//
+// The bots follow the ball with an aim error drawn again every time the ball
+// turns towards them, so they miss now and then and rallies end. A match
+// goes to POINTS, or ends as a timeout after MAX_MATCH_TICKS.
+//
+// usage: java -cp game/target/classes pong3d.TournamentRunner [matches] [threads] [seed]
+class TournamentRunner {
+    static final int POINTS = 3;
+    static final int MAX_MATCH_TICKS = 30 * 60 * Simulation.TICK_RATE;
+    // aim error as a share of the paddle's half height, above 1 a bot can miss
+    static final float AIM_ERROR = 1.4f;
+
+    static final SimulationTuning[] SETS = {
+            SimulationTuning.DEFAULT,
+            new SimulationTuning(0.009f, 0.75f, 273f, 9975),
+            new SimulationTuning(0.015f, 0.75f, 273f, 9975),
+            new SimulationTuning(0.012f, 0.70f, 273f, 9975),
+            new SimulationTuning(0.012f, 0.80f, 273f, 9975),
+            new SimulationTuning(0.012f, 0.75f, 200f, 9975),
+            new SimulationTuning(0.012f, 0.75f, 350f, 9975),
+            new SimulationTuning(0.012f, 0.75f, 273f, 9950),
+            new SimulationTuning(0.012f, 0.75f, 273f, 9990),
+    };
+
+    // what the matches of one parameter set add up to
+    static class Results {
+        final SimulationTuning tuning;
+        final LongAdder matches = new LongAdder();
+        final LongAdder winsOne = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder ticks = new LongAdder();
+        final LongAdder rallies = new LongAdder();
+        // of finished rallies, a match that times out is stuck in its last one
+        final LongAdder rallyHitsTotal = new LongAdder();
+        final LongAdder powerUpsSpawned = new LongAdder();
+        final LongAdder powerUpsTaken = new LongAdder();
+        // paddle hits per rally
+        final LatencyHistogram rallyHits = new LatencyHistogram();
+
+        Results(SimulationTuning tuning) {
+            this.tuning = tuning;
+        }
+    }
+
+    // a paddle that follows the ball, aiming off its center by error
+    static class Bot {
+        final Player player;
+        final boolean left;
+        float error;
+        boolean ballComing;
+
+        Bot(Player player, boolean left) {
+            this.player = player;
+            this.left = left;
+        }
+
+        void update(Ball ball, SimulationRandom random) {
+            boolean coming = left ? ball.velocityX() < 0 : ball.velocityX() > 0;
+            if (coming && !ballComing) {
+                error = (random.nextFloat() * 2 - 1) * AIM_ERROR;
+            }
+            ballComing = coming;
+            float target = ball.posY() + error * player.scaleY();
+            player.moveUp = target > player.posY() + 0.05f;
+            player.moveDown = target < player.posY() - 0.05f;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        Results[] results = new Results[SETS.length];
+        for (int i = 0; i < SETS.length; i++) {
+            results[i] = new Results(SETS[i]);
+        }
+        AtomicInteger nextMatch = new AtomicInteger();
+        LongAdder done = new LongAdder();
+        LongAdder ticks = new LongAdder();
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                for (int match = nextMatch.getAndIncrement(); match < matches; match = nextMatch.getAndIncrement()) {
+                    ticks.add(play(match, seed, results[match % results.length]));
+                    done.increment();
+                }
+            }, "tournament-" + i);
+            workers[i].start();
+        }
+        System.out.printf("%d matches, %d parameter sets, %d threads on %d cores%n", matches, SETS.length, threads,
+                Runtime.getRuntime().availableProcessors());
+
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                worker.join(1000);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%5.0fs %7d matches %9.0f matches/s %11.0f ticks/s%n", seconds, done.sum(),
+                        done.sum() / seconds, ticks.sum() / seconds);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%n%-52s %6s %6s %8s %6s %6s %6s %8s %6s %6s%n", "parameters", "played", "P1 win",
+                "match s", "rally", "p50", "p99", "spawn/m", "taken", "t/o");
+        for (Results set : results) {
+            long played = set.matches.sum();
+            double playSeconds = (double) set.ticks.sum() / Simulation.TICK_RATE;
+            System.out.printf("%-52s %6d %5.1f%% %8.1f %6.2f %6d %6d %8.2f %5.1f%% %6d%n", set.tuning, played,
+                    100.0 * set.winsOne.sum() / Math.max(1, played - set.timeouts.sum()), playSeconds / played,
+                    (double) set.rallyHitsTotal.sum() / set.rallies.sum(), set.rallyHits.percentile(0.5),
+                    set.rallyHits.percentile(0.99), set.powerUpsSpawned.sum() / (playSeconds / 60),
+                    100.0 * set.powerUpsTaken.sum() / Math.max(1, set.powerUpsSpawned.sum()), set.timeouts.sum());
+        }
+        System.out.printf("%n%d matches in %.1f s: %.0f matches/s, %.0f per thread, %.0f ticks/s%n", matches, seconds,
+                matches / seconds, matches / seconds / threads, ticks.sum() / seconds);
+    }
+
+    // plays one match into results, returns its ticks
+    static int play(int match, long seed, Results results) {
+        // consecutive inputs to SplitMix64 give unrelated seeds
+        long matchSeed = new SimulationRandom(seed + match).nextLong();
+        Simulation simulation = new Simulation(matchSeed, results.tuning);
+        // the bots draw from their own random, so the simulation's follows only the game
+        SimulationRandom botRandom = simulation.random.split();
+        Bot one = new Bot(simulation.playerOne, true);
+        Bot two = new Bot(simulation.playerTwo, false);
+
+        int ticks = 0;
+        int rallyStart = 0;
+        while (ticks < MAX_MATCH_TICKS) {
+            if (simulation.pauseGame) {
+                if (simulation.scoreOne.getScore() >= POINTS || simulation.scoreTwo.getScore() >= POINTS) {
+                    break;
+                }
+                simulation.startGame();
+                rallyStart = simulation.paddleHits;
+            }
+            one.update(simulation.ball, botRandom);
+            two.update(simulation.ball, botRandom);
+            simulation.update();
+            ticks++;
+            if (simulation.pauseGame) {
+                int hits = simulation.paddleHits - rallyStart;
+                results.rallyHits.record(hits);
+                results.rallyHitsTotal.add(hits);
+                results.rallies.increment();
+            }
+        }
+
+        results.matches.increment();
+        results.ticks.add(ticks);
+        results.powerUpsSpawned.add(simulation.powerUpsSpawned);
+        results.powerUpsTaken.add(simulation.powerUpsTaken);
+        if (ticks >= MAX_MATCH_TICKS) {
+            results.timeouts.increment();
+        } else if (simulation.scoreOne.getScore() > simulation.scoreTwo.getScore()) {
+            results.winsOne.increment();
+        }
+        return ticks;
+    }
+}
@@ -0,0 +1,110 @@
+package pong3d;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.jogamp.opengl.GL3;
+import com.jogamp.math.Matrix4f;
+
+// One uniform buffer holding the std140 "Frame" block followed by one
+// "Object" block per drawn object. All blocks are collected on the CPU and
+// written with a single glBufferSubData per frame, the draws then only
+// select their Object block with glBindBufferRange.
+//
+// std140 offsets, Frame: projection 0, lightDirection 64 (xyz used),
+// metallic 80, roughness 84. Object: modelview 0, normalMat 64.
+class UniformBlocks {
+    // binding points shared by all programs
+    static final int FRAME_BINDING = 0;
+    static final int OBJECT_BINDING = 1;
+
+    static final int FRAME_SIZE = 96;
+    static final int OBJECT_SIZE = 128;
+    static final int MAX_OBJECTS = 256;
+
+    static final String FRAME_BLOCK = """
+layout(std140) uniform Frame {
+    mat4 projection;
+    vec4 lightDirection;
+    float metallic;
+    float roughness;
+};
+""";
+
+    static final String OBJECT_BLOCK = """
+layout(std140) uniform Object {
+    mat4 modelview;
+    mat4 normalMat;
+};
+""";
+
+    int bufID;
+    // block offsets have to be multiples of GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT
+    private int frameStride;
+    private int objectStride;
+    private ByteBuffer data;
+    private int objects;
+    private final float[] matrixData = new float[16];
+
+    public void init(GL3 gl) {
+        int[] alignment = new int[1];
+        gl.glGetIntegerv(GL3.GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT, alignment, 0);
+        frameStride = align(FRAME_SIZE, alignment[0]);
+        objectStride = align(OBJECT_SIZE, alignment[0]);
+
+        data = ByteBuffer.allocateDirect(frameStride + MAX_OBJECTS * objectStride).order(ByteOrder.nativeOrder());
+
+        int[] bufIDs = new int[1];
+        gl.glGenBuffers(1, bufIDs, 0);
+        bufID = bufIDs[0];
+        gl.glBindBuffer(GL3.GL_UNIFORM_BUFFER, bufID);
+        gl.glBufferData(GL3.GL_UNIFORM_BUFFER, data.capacity(), null, GL3.GL_DYNAMIC_DRAW);
+    }
+
+    private static int align(int size, int alignment) {
+        return alignment <= 0 ? size : (size + alignment - 1) / alignment * alignment;
+    }
+
+    // starts a new frame, all Object blocks of the previous frame are dropped
+    public void setFrame(Matrix4f projection, float[] lightDirection, float metallic, float roughness) {
+        objects = 0;
+        putMatrix(0, projection);
+        data.putFloat(64, lightDirection[0]);
+        data.putFloat(68, lightDirection[1]);
+        data.putFloat(72, lightDirection[2]);
+        data.putFloat(76, 0.0f);
+        data.putFloat(80, metallic);
+        data.putFloat(84, roughness);
+    }
+
+    // returns the offset of the new Object block, or -1 if the buffer is full
+    public int addObject(Matrix4f modelview, Matrix4f normalMat) {
+        if (objects == MAX_OBJECTS) {
+            return -1;
+        }
+        int offset = frameStride + objects * objectStride;
+        putMatrix(offset, modelview);
+        putMatrix(offset + 64, normalMat);
+        objects++;
+        return offset;
+    }
+
+    private void putMatrix(int offset, Matrix4f matrix) {
+        matrix.get(matrixData);
+        for (int i = 0; i < 16; i++) {
+            data.putFloat(offset + i * 4, matrixData[i]);
+        }
+    }
+
+    // writes the Frame block and all Object blocks of this frame
+    public void upload(GlState glState) {
+        data.limit(frameStride + objects * objectStride);
+        glState.uniformBufferSubData(bufID, data);
+        data.clear();
+        glState.bindBufferRange(FRAME_BINDING, bufID, 0, FRAME_SIZE);
+    }
+
+    public void bindObject(GlState glState, int offset) {
+        glState.bindBufferRange(OBJECT_BINDING, bufID, offset, OBJECT_SIZE);
+    }
+}
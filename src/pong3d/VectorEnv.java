@@ -0,0 +1,297 @@
+package pong3d;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+// Gym style vectorized environment for training agents: reset() and step()
+// advance count independent simulations in lockstep. The agent plays player
+// one, player two is a bot following the ball, or a second agent with
+// selfPlay. Each step reads the actions and writes observations, rewards
+// and dones into preallocated direct buffers in native order, so a trainer
+// in another language can share them without copying.
+//
+// An episode is a match to POINTS, or TRUNCATE_TICKS long at most. A point
+// ends a rally, not the episode; the next ball is served right away. An env
+// whose episode is done is reset within the same step and its observation
+// is already the first of the next episode, like the autoreset of Gym's
+// vector environments.
+//
+// Steps run on a fork/join pool in chunks of ENVS_PER_TASK envs. The chunk
+// tasks are created once and reinitialized every step, so a step allocates
+// nothing.
+//
+// usage: java -cp game/target/classes pong3d.VectorEnv [envs] [seconds]
+class VectorEnv {
+    static final int ENVS_PER_TASK = 256;
+    static final int POINTS = 3;
+    static final int TRUNCATE_TICKS = 5 * 60 * Simulation.TICK_RATE;
+
+    // actions
+    static final int STAY = 0;
+    static final int UP = 1;
+    static final int DOWN = 2;
+
+    // observation layout, OBSERVATION_SIZE floats per env
+    static final int BALL_X = 0;
+    static final int BALL_Y = 1;
+    static final int BALL_VELOCITY_X = 2;
+    static final int BALL_VELOCITY_Y = 3;
+    static final int ONE_Y = 4;
+    static final int ONE_VELOCITY = 5;
+    static final int ONE_SCALE_Y = 6;
+    static final int TWO_Y = 7;
+    static final int TWO_VELOCITY = 8;
+    static final int TWO_SCALE_Y = 9;
+    // 1 while a power-up is on the court
+    static final int POWER_UP_SPAWNED = 10;
+    static final int POWER_UP_X = 11;
+    static final int POWER_UP_Y = 12;
+    static final int POWER_UP_TYPE = 13;
+    static final int SCORE_ONE = 14;
+    static final int SCORE_TWO = 15;
+    static final int OBSERVATION_SIZE = 16;
+
+    // dones
+    static final int RUNNING = 0;
+    static final int TERMINATED = 1;
+    static final int TRUNCATED = 2;
+
+    final int count;
+    final boolean selfPlay;
+    // count * OBSERVATION_SIZE
+    final FloatBuffer observations;
+    // the action of player one of env i at 2 * i, of player two at 2 * i + 1
+    final IntBuffer actions;
+    // for player one: +1 for a point won, -1 for a point lost
+    final FloatBuffer rewards;
+    final IntBuffer dones;
+
+    private final Simulation[] simulations;
+    // where every episode starts, and the random each env draws its episode seeds from
+    private final SimulationSnapshot initial = new SimulationSnapshot();
+    private final SimulationRandom[] seeds;
+    private final int[] episodeTicks;
+
+    private final ForkJoinPool pool;
+    private final StepTask[] tasks;
+    private final RecursiveAction stepAll = new RecursiveAction() {
+        @Override
+        protected void compute() {
+            ForkJoinTask.invokeAll(tasks);
+        }
+    };
+
+    // without a pool the caller steps all envs
+    public VectorEnv(int count, long seed, SimulationTuning tuning, boolean selfPlay, ForkJoinPool pool) {
+        this.count = count;
+        this.selfPlay = selfPlay;
+        this.pool = pool;
+        observations = floats(count * OBSERVATION_SIZE);
+        actions = ints(count * 2);
+        rewards = floats(count);
+        dones = ints(count);
+
+        simulations = new Simulation[count];
+        seeds = new SimulationRandom[count];
+        episodeTicks = new int[count];
+        SimulationRandom master = new SimulationRandom(seed);
+        for (int i = 0; i < count; i++) {
+            seeds[i] = master.split();
+            simulations[i] = new Simulation(seeds[i].nextLong(), tuning);
+        }
+        initial.save(simulations[0]);
+
+        int chunks = (count + ENVS_PER_TASK - 1) / ENVS_PER_TASK;
+        tasks = new StepTask[chunks];
+        for (int i = 0; i < chunks; i++) {
+            tasks[i] = new StepTask(i * ENVS_PER_TASK, Math.min(count, (i + 1) * ENVS_PER_TASK));
+        }
+    }
+
+    private static FloatBuffer floats(int size) {
+        return ByteBuffer.allocateDirect(size * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    private static IntBuffer ints(int size) {
+        return ByteBuffer.allocateDirect(size * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    // starts a new episode in every env and writes the first observations
+    public void reset() {
+        for (int i = 0; i < count; i++) {
+            reset(i);
+            rewards.put(i, 0f);
+            dones.put(i, RUNNING);
+            observe(i);
+        }
+    }
+
+    // applies the actions, advances every env by one tick and writes the results
+    public void step() {
+        if (pool == null || tasks.length == 1) {
+            for (StepTask task : tasks) {
+                task.compute();
+            }
+            return;
+        }
+        for (StepTask task : tasks) {
+            task.reinitialize();
+        }
+        stepAll.reinitialize();
+        pool.invoke(stepAll);
+    }
+
+    public Simulation simulation(int env) {
+        return simulations[env];
+    }
+
+    private void reset(int env) {
+        Simulation simulation = simulations[env];
+        initial.restore(simulation);
+        simulation.random.setSeed(seeds[env].nextLong());
+        simulation.startGame();
+        episodeTicks[env] = 0;
+    }
+
+    private void step(int env) {
+        Simulation simulation = simulations[env];
+        Player one = simulation.playerOne;
+        Player two = simulation.playerTwo;
+        int action = actions.get(2 * env);
+        one.moveUp = action == UP;
+        one.moveDown = action == DOWN;
+        if (selfPlay) {
+            action = actions.get(2 * env + 1);
+            two.moveUp = action == UP;
+            two.moveDown = action == DOWN;
+        } else {
+            HeadlessRunner.track(two, simulation.ball);
+        }
+
+        int scoreOne = simulation.scoreOne.getScore();
+        int scoreTwo = simulation.scoreTwo.getScore();
+        simulation.update();
+        int ticks = ++episodeTicks[env];
+        rewards.put(env, simulation.scoreOne.getScore() - scoreOne - (simulation.scoreTwo.getScore() - scoreTwo));
+
+        int done = RUNNING;
+        if (simulation.scoreOne.getScore() >= POINTS || simulation.scoreTwo.getScore() >= POINTS) {
+            done = TERMINATED;
+        } else if (ticks >= TRUNCATE_TICKS) {
+            done = TRUNCATED;
+        }
+        dones.put(env, done);
+        if (done != RUNNING) {
+            reset(env);
+        } else if (simulation.pauseGame) {
+            simulation.startGame();
+        }
+        observe(env);
+    }
+
+    private void observe(int env) {
+        Simulation simulation = simulations[env];
+        FloatBuffer out = observations;
+        int base = env * OBSERVATION_SIZE;
+        Ball ball = simulation.ball;
+        out.put(base + BALL_X, ball.posX());
+        out.put(base + BALL_Y, ball.posY());
+        out.put(base + BALL_VELOCITY_X, ball.velocityX());
+        out.put(base + BALL_VELOCITY_Y, ball.velocityY());
+        out.put(base + ONE_Y, simulation.playerOne.posY());
+        out.put(base + ONE_VELOCITY, simulation.playerOne.velocityY());
+        out.put(base + ONE_SCALE_Y, simulation.playerOne.scaleY());
+        out.put(base + TWO_Y, simulation.playerTwo.posY());
+        out.put(base + TWO_VELOCITY, simulation.playerTwo.velocityY());
+        out.put(base + TWO_SCALE_Y, simulation.playerTwo.scaleY());
+        PowerUp powerUp = simulation.powerUp;
+        out.put(base + POWER_UP_SPAWNED, powerUp.spawned() ? 1f : 0f);
+        out.put(base + POWER_UP_X, powerUp.spawned() ? powerUp.posX() : 0f);
+        out.put(base + POWER_UP_Y, powerUp.spawned() ? powerUp.posY() : 0f);
+        out.put(base + POWER_UP_TYPE, powerUp.spawned() ? powerUp.type : 0f);
+        out.put(base + SCORE_ONE, simulation.scoreOne.getScore());
+        out.put(base + SCORE_TWO, simulation.scoreTwo.getScore());
+    }
+
+    class StepTask extends RecursiveAction {
+        final int from, to;
+
+        StepTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = from; i < to; i++) {
+                step(i);
+            }
+        }
+    }
+
+    // steps with random actions and reports environment steps per second,
+    // on the caller thread and on the common pool, and the bytes a step
+    // allocates on the caller thread; only step() is timed, not the policy
+    public static void main(String[] args) {
+        int envs = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 5.0;
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        System.out.printf("%d envs, %d cores, fork/join parallelism %d%n", envs,
+                Runtime.getRuntime().availableProcessors(), pool.getParallelism());
+        run(new VectorEnv(envs, 42, SimulationTuning.DEFAULT, false, null), "caller", seconds);
+        run(new VectorEnv(envs, 42, SimulationTuning.DEFAULT, false, pool), "fj-" + pool.getParallelism(), seconds);
+    }
+
+    static void run(VectorEnv env, String runner, double seconds) {
+        SimulationRandom policy = new SimulationRandom(1);
+        AllocationCounter allocations = new AllocationCounter();
+        env.reset();
+        long steps = 0;
+        long episodes = 0;
+        double rewards = 0;
+        long allocated = 0;
+        long stepNanos = 0;
+        long start = System.nanoTime();
+        long warmUpEnd = start + (long) (seconds * 0.2e9);
+        long end = start + (long) (seconds * 1e9);
+        boolean warm = false;
+        while (true) {
+            long now = System.nanoTime();
+            if (!warm && now >= warmUpEnd) {
+                warm = true;
+                steps = 0;
+                stepNanos = 0;
+                episodes = 0;
+                rewards = 0;
+            } else if (now >= end) {
+                break;
+            }
+            for (int i = 0; i < 2 * env.count; i++) {
+                env.actions.put(i, policy.nextInt(3));
+            }
+            allocations.beginFrame();
+            long stepStart = System.nanoTime();
+            env.step();
+            stepNanos += System.nanoTime() - stepStart;
+            allocations.endFrame();
+            if (warm) {
+                allocated += allocations.lastFrameBytes();
+            }
+            steps++;
+            for (int i = 0; i < env.count; i++) {
+                rewards += env.rewards.get(i);
+                if (env.dones.get(i) != RUNNING) {
+                    episodes++;
+                }
+            }
+        }
+        double elapsed = stepNanos / 1e9;
+        System.out.printf("%-8s %12.0f env steps/s %8.1f us per step, %d episodes, reward %+.0f, "
+                + "%d bytes allocated in %d steps%n", runner, steps * env.count / elapsed, elapsed * 1e6 / steps, episodes, rewards, allocated, steps);
+    }
+}